@@ -0,0 +1,68 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.controllers.EmployeeRestController;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency percentiles of normal /users page requests while a bulk reader requests the whole table alongside them,
+ * with the server-side page cap against the previous unlimited default. Run with "-prof gc" to see the allocation
+ * the bulk reader drives.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkReaderLoadBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"1000", "2147483647"})
+    public int maxPageSize;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRestController employeeRestController;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark", "logging.level.root=WARN")
+                // Arguments rather than default properties, which application.properties would override
+                .run("--hrapp.search.max-page-size=" + maxPageSize,
+                        // Every request must reach the database, as distinct dashboards would
+                        "--hrapp.cache.searches.maximum-rows=0");
+        context.getBean(EmployeeService.class).processFile(new MockMultipartFile("employees.csv", SyntheticEmployees.csv(rows)));
+        employeeRestController = context.getBean(EmployeeRestController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public ResponseEntity<Object> pageClient(){
+        return employeeRestController.getEmployees(1000.0, 1100.0, null, null, null, 0, 20, "salary", "ASC");
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public ResponseEntity<Object> bulkReader(){
+        return employeeRestController.getEmployees(0.0, 4000.0, null, null, null, 0, null, "id", "ASC");
+    }
+}
@@ -0,0 +1,80 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import com.linh.nphc.hrapp.services.EmployeeColumnStore;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a /users salary range page from the JPA search and from the column store, for a narrow range
+ * (about 2% of the table) and the default range that matches every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnStoreBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"narrow", "full"})
+    public String range;
+
+    @Param({"salary", "name"})
+    public String sort;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private EmployeeColumnStore employeeColumnStore;
+
+    private Double minSalary;
+    private Double maxSalary;
+    private OffsetBasedPageRequest page;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN",
+                        "--hrapp.search.column-store.enabled=true");
+        context.getBean(EmployeeService.class).processFile(new MockMultipartFile("employees.csv", SyntheticEmployees.csv(rows)));
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        employeeColumnStore = context.getBean(EmployeeColumnStore.class);
+        // The upload is too large to track by id, so the store is rebuilt in the background; build it before measuring
+        employeeColumnStore.load();
+
+        minSalary = "narrow".equals(range) ? 1000.0 : 0.0;
+        maxSalary = "narrow".equals(range) ? 1100.0 : Double.MAX_VALUE;
+        page = new OffsetBasedPageRequest(100, 20, Sort.by(Sort.Direction.ASC, sort));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    public List<Employee> jpaSearch(){
+        return employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(minSalary, maxSalary, null, null, null, page);
+    }
+
+    @Benchmark
+    public Optional<List<Employee>> columnStore(){
+        return employeeColumnStore.findEmployees(minSalary, maxSalary, null, null, null, page);
+    }
+}
@@ -0,0 +1,80 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.services.EmployeeCsvRow;
+import com.linh.nphc.hrapp.services.EmployeeCsvTokenizer;
+import com.linh.nphc.hrapp.services.EmployeeRowConverter;
+import com.linh.nphc.hrapp.services.StartDateParser;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns an upload file into employees on one thread, without validation or writes: CSVReader against
+ * EmployeeCsvTokenizer, both followed by EmployeeRowConverter. Scores are rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvTokenizerBenchmark {
+
+    public static final int ROWS = 100_000;
+
+    private final StartDateParser startDateParser = new StartDateParser(StartDateParser.DEFAULT_FORMATS);
+    private final EmployeeRowConverter employeeRowConverter = new EmployeeRowConverter(startDateParser);
+    private byte[] file;
+
+    @Setup(Level.Trial)
+    public void createFile(){
+        file = SyntheticEmployees.csv(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void csvReader(Blackhole blackhole) throws IOException, CsvValidationException {
+        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(new ByteArrayInputStream(file)))
+                .withSkipLines(1)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.BOTH)
+                .build()){
+            String[] row;
+            while ((row = csvReader.readNext()) != null){
+                blackhole.consume(employeeRowConverter.convert(row));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void tokenizer(Blackhole blackhole) throws IOException {
+        try (EmployeeCsvTokenizer tokenizer = new EmployeeCsvTokenizer(new ByteArrayInputStream(file))){
+            EmployeeCsvRow row;
+            while ((row = tokenizer.readNext()) != null){
+                blackhole.consume(employeeRowConverter.convert(row));
+            }
+        }
+    }
+
+    /**
+     * The part of the tokenizer path left on the reader thread when the pipeline has workers.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void tokenizerWithoutConversion(Blackhole blackhole) throws IOException {
+        try (EmployeeCsvTokenizer tokenizer = new EmployeeCsvTokenizer(new ByteArrayInputStream(file))){
+            EmployeeCsvRow row;
+            while ((row = tokenizer.readNext()) != null){
+                blackhole.consume(row);
+            }
+        }
+    }
+}
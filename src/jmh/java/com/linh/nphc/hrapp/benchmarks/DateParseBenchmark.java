@@ -0,0 +1,54 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.services.StartDateParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a mix of yyyy-MM-dd and dd-MMM-yy start dates, as found in uploaded files,
+ * with the previous try-each-format loop and with {@link StartDateParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateParseBenchmark {
+
+    private static final String[] MIXED_DATES = {"2001-11-16", "16-Nov-01", "2001-11-18", "17-Nov-01",
+            "2001-11-19", "18-Nov-01", "2001-11-20", "21-Nov-01"};
+
+    private final StartDateParser startDateParser = new StartDateParser(StartDateParser.DEFAULT_FORMATS);
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void formatterPerCall(Blackhole blackhole){
+        for (String date : MIXED_DATES){
+            blackhole.consume(parseWithFormatterPerCall(date));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void startDateParser(Blackhole blackhole){
+        for (String date : MIXED_DATES){
+            blackhole.consume(startDateParser.parse(date));
+        }
+    }
+
+    private static LocalDate parseWithFormatterPerCall(String dateStr){
+        String[] dateFormats = {"yyyy-MM-dd", "dd-MMM-yy"};
+        for (String format : dateFormats){
+            try {
+                return LocalDate.parse(dateStr, DateTimeFormatter.ofPattern(format));
+            } catch (DateTimeParseException ignored) {}
+        }
+        throw new IllegalArgumentException(dateStr);
+    }
+}
@@ -0,0 +1,81 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.services.MappedCsvReader;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a 1 GB employee file row by row, as the import does before converting rows, once through CSVReader on an
+ * InputStreamReader and once through MappedCsvReader. Each invocation is one full pass over the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class MappedImportBenchmark {
+
+    public static final long FILE_SIZE = 1L << 30;
+
+    private Path file;
+    private long rows;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("employees-import-", ".csv");
+        rows = SyntheticEmployees.write(file, FILE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long csvReader(Blackhole blackhole) throws IOException, CsvValidationException {
+        long count = 0;
+        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))
+                .withSkipLines(1)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.BOTH)
+                .build()){
+            String[] row;
+            while ((row = csvReader.readNext()) != null){
+                blackhole.consume(row);
+                count++;
+            }
+        }
+        return this.checkRows(count);
+    }
+
+    @Benchmark
+    public long mappedCsvReader(Blackhole blackhole) throws IOException {
+        long count = 0;
+        try (MappedCsvReader reader = new MappedCsvReader(file)){
+            String[] row;
+            while ((row = reader.readNext()) != null){
+                blackhole.consume(row);
+                count++;
+            }
+        }
+        return this.checkRows(count);
+    }
+
+    private long checkRows(long count){
+        if (count != rows){
+            throw new IllegalStateException(String.format("Read %d rows, expected %d", count, rows));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,84 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the upload stage timers and search histograms: processFile and a cached /users search, the cheapest
+ * search there is, with hrapp.metrics.enabled on and off. Both parsing paths are covered, as the CSVReader one
+ * times conversion and validation separately. Scores are microseconds per row for uploads and per search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    public static final int ROWS = 100_000;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    @Param({"true", "false"})
+    public boolean fastParsing;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private JdbcTemplate jdbcTemplate;
+    private MockMultipartFile file;
+    private final OffsetBasedPageRequest page = new OffsetBasedPageRequest(0, 20, Sort.by(Sort.Direction.ASC, "salary"));
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN",
+                        "--hrapp.metrics.enabled=" + metrics, "--hrapp.upload.fast-parsing=" + fastParsing,
+                        "--hrapp.upload.delta.enabled=false");
+        employeeService = context.getBean(EmployeeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        file = new MockMultipartFile("employees.csv", SyntheticEmployees.csv(ROWS));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void processFile(EmptyTable emptyTable){
+        employeeService.processFile(file);
+    }
+
+    @Benchmark
+    public List<Employee> cachedSearch(){
+        return employeeService.getEmployees(1000.0, 1100.0, null, null, null, page);
+    }
+
+    /**
+     * Empties the table before each upload; only the upload benchmark asks for it.
+     */
+    @State(Scope.Thread)
+    public static class EmptyTable {
+
+        @Setup(Level.Invocation)
+        public void clearTable(MetricsOverheadBenchmark benchmark){
+            benchmark.jdbcTemplate.update("delete from employee");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a /users name substring search, the "like '%name%'" scan against the trigram name index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NameSearchBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"Name 4242", "ame 9999"})
+    public String name;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private EmployeeService employeeService;
+    private final OffsetBasedPageRequest page = new OffsetBasedPageRequest(0, 20, Sort.by(Sort.Direction.ASC, "name"));
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark", "logging.level.root=WARN")
+                .run();
+        employeeService = context.getBean(EmployeeService.class);
+        employeeService.processFile(new MockMultipartFile("employees.csv", SyntheticEmployees.csv(rows)));
+        employeeRepository = context.getBean(EmployeeRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    public List<Employee> likeScan(){
+        return employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(null, null, null, null, name, page);
+    }
+
+    @Benchmark
+    public List<Employee> nameIndex(){
+        return employeeService.getEmployees(null, null, null, null, name, page);
+    }
+}
@@ -0,0 +1,58 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.services.EmployeeCsvRow;
+import com.linh.nphc.hrapp.services.EmployeeCsvTokenizer;
+import com.linh.nphc.hrapp.services.EmployeeRowConverter;
+import com.linh.nphc.hrapp.services.StartDateParser;
+import com.linh.nphc.hrapp.services.UploadPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizes an upload file and converts its rows through UploadPipeline, without validation or writes, for
+ * different numbers of workers: the reader thread only splits rows, so salary and date parsing should scale with
+ * the workers. Scores are rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelParseBenchmark {
+
+    public static final int ROWS = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private final EmployeeRowConverter employeeRowConverter = new EmployeeRowConverter(new StartDateParser(StartDateParser.DEFAULT_FORMATS));
+    private ExecutorService workerPool;
+    private byte[] file;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        file = SyntheticEmployees.csv(ROWS);
+        workerPool = Executors.newFixedThreadPool(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        workerPool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void parse(Blackhole blackhole) throws IOException {
+        UploadPipeline<EmployeeCsvRow> pipeline = new UploadPipeline<>(employeeRowConverter::convert, workerPool, workers, 1000);
+        try (EmployeeCsvTokenizer tokenizer = new EmployeeCsvTokenizer(new ByteArrayInputStream(file))){
+            pipeline.run(tokenizer, blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for one end-to-end processFile into an empty table, from the multipart file to the committed rows,
+ * for upload files of growing size. Delta uploads are off so every invocation writes every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ProcessFileBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private JdbcTemplate jdbcTemplate;
+    private MockMultipartFile file;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN",
+                        "--hrapp.upload.delta.enabled=false");
+        employeeService = context.getBean(EmployeeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        file = new MockMultipartFile("employees.csv", SyntheticEmployees.csv(rows));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable(){
+        jdbcTemplate.update("delete from employee");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    public void processFile(){
+        employeeService.processFile(file);
+    }
+}
@@ -0,0 +1,38 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.services.EmployeeRowConverter;
+import com.linh.nphc.hrapp.services.StartDateParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per row of turning already split CSV fields into an employee with the EmployeeRowConverter used by the
+ * CSVReader and import paths, apart from reading the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowConversionBenchmark {
+
+    private static final String[][] ROWS = {
+            {"e0001", "hpotter", "Harry Potter", "1234.00", "2001-11-16"},
+            {"e0002", "rwesley", "Ron Weasley", "19234.50", "16-Nov-01"},
+            {"e0003", "ssnape", "Severus Snape", "4000.0", "2001-11-17"},
+            {"e0004", "rhagrid", "Rubeus Hagrid", "3999.999", "17-Nov-01"}};
+
+    private final EmployeeRowConverter employeeRowConverter = new EmployeeRowConverter(
+            new StartDateParser(StartDateParser.DEFAULT_FORMATS));
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void convert(Blackhole blackhole){
+        for (String[] row : ROWS){
+            blackhole.consume(employeeRowConverter.convert(row));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of /users searches per filter combination, comparing the previous single JPQL query with optional
+ * "(:x is null or ...)" predicates against the dynamically built search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchFilterBenchmark {
+
+    private static final String CATCH_ALL_QUERY = "select e from Employee e where  e.salary >= :minSalary " +
+            "and e.salary < :maxSalary " +
+            "and (:id is null or e.id = :id) " +
+            "and (:login is null or e.login = :login) " +
+            "and (:name is null or e.name like concat('%', :name, '%'))";
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"salary", "id", "login", "name", "salary+name"})
+    public String filter;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private EntityManager entityManager;
+
+    private Double minSalary;
+    private Double maxSalary;
+    private String id;
+    private String login;
+    private String name;
+    private final OffsetBasedPageRequest page = new OffsetBasedPageRequest(0, 20, Sort.by(Sort.Direction.ASC, "name"));
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark", "logging.level.root=WARN")
+                .run();
+        context.getBean(EmployeeService.class).processFile(new MockMultipartFile("employees.csv", SyntheticEmployees.csv(rows)));
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+
+        minSalary = filter.startsWith("salary") ? 1000.0 : 0.0;
+        maxSalary = filter.startsWith("salary") ? 1100.0 : Double.MAX_VALUE;
+        id = "id".equals(filter) ? "e" + rows / 2 : null;
+        login = "login".equals(filter) ? "login" + rows / 2 : null;
+        name = filter.endsWith("name") ? "Name 4242" : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Employee> catchAllQuery(){
+        List<Employee> result = entityManager.createQuery(CATCH_ALL_QUERY + " order by e.name", Employee.class)
+                .setParameter("minSalary", minSalary)
+                .setParameter("maxSalary", maxSalary)
+                .setParameter("id", id)
+                .setParameter("login", login)
+                .setParameter("name", name)
+                .setFirstResult(0)
+                .setMaxResults(20)
+                .getResultList();
+        entityManager.clear();
+        return result;
+    }
+
+    @Benchmark
+    public List<Employee> dynamicQuery(){
+        return employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(minSalary, maxSalary, id, login, name, page);
+    }
+}
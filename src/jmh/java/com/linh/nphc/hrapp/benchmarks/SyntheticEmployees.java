@@ -0,0 +1,58 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates upload files in the format accepted by /users/upload, alternating both supported date formats.
+ */
+public final class SyntheticEmployees {
+
+    private SyntheticEmployees(){
+    }
+
+    public static byte[] csv(int rows){
+        return csv(0, rows);
+    }
+
+    /**
+     * @param first number of the first employee, so files starting far enough apart share no id or login
+     */
+    public static byte[] csv(int first, int rows){
+        StringBuilder builder = new StringBuilder(rows * 48).append("id,login,name,salary,startDate\n");
+        for (int i = first; i < first + rows; i++){
+            appendRow(builder, i);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a file of at least the given size without holding it in memory.
+     *
+     * @return the number of rows written
+     */
+    public static long write(Path file, long bytes) throws IOException {
+        long rows = 0;
+        long written = 0;
+        StringBuilder builder = new StringBuilder(64);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+            writer.write("id,login,name,salary,startDate\n");
+            while (written < bytes){
+                builder.setLength(0);
+                appendRow(builder, (int) rows++);
+                writer.append(builder);
+                written += builder.length();
+            }
+        }
+        return rows;
+    }
+
+    private static void appendRow(StringBuilder builder, int i){
+        builder.append('e').append(i).append(",login").append(i).append(",Employee Name ").append(i).append(',')
+                .append(1000 + (i % 5000)).append('.').append(i % 100).append(',')
+                .append(i % 2 == 0 ? "2001-11-16" : "16-Nov-01").append('\n');
+    }
+}
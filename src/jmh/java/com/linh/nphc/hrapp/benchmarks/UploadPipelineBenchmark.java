@@ -0,0 +1,62 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end processFile throughput, in rows per second, for different numbers of parse/validate workers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UploadPipelineBenchmark {
+
+    public static final int ROWS = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private JdbcTemplate jdbcTemplate;
+    private MockMultipartFile file;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments rather than default properties, which application.properties would override
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN",
+                        "--hrapp.upload.workers=" + workers, "--hrapp.upload.delta.enabled=false");
+        employeeService = context.getBean(EmployeeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        file = new MockMultipartFile("employees.csv", SyntheticEmployees.csv(ROWS));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable(){
+        jdbcTemplate.update("delete from employee");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void processFile(){
+        employeeService.processFile(file);
+    }
+}
@@ -0,0 +1,88 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.config.ImportDataSourceConfiguration;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing an upload through JpaRepository.save per row with the batched JDBC path.
+ * Throughput is reported per row, so the score reads as rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UploadWriteBenchmark {
+
+    public static final int ROWS = 10_000;
+
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private EmployeeJdbcRepository employeeJdbcRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate importTransactionTemplate;
+    private List<Employee> employees;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark", "logging.level.root=WARN")
+                .run();
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        employeeJdbcRepository = context.getBean(EmployeeJdbcRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        importTransactionTemplate = new TransactionTemplate(context.getBean(ImportDataSourceConfiguration.IMPORT_TRANSACTION_MANAGER, PlatformTransactionManager.class));
+        employees = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++){
+            employees.add(new Employee("e" + i, "login" + i, "Name " + i, 1000.0 + i, LocalDate.of(2001, 11, 16)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable(){
+        jdbcTemplate.update("delete from employee");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void repositorySavePerRow(){
+        transactionTemplate.executeWithoutResult(status -> employees.forEach(employeeRepository::save));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void jdbcBatch(){
+        importTransactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < employees.size(); from += batchSize){
+                employeeJdbcRepository.saveAll(employees.subList(from, Math.min(from + batchSize, employees.size())));
+            }
+        });
+    }
+}
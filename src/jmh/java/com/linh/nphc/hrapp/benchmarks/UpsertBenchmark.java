@@ -0,0 +1,81 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.config.ImportDataSourceConfiguration;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of uploading a file again, as a retry after a lost response would: overwrite mode rewrites every row,
+ * upsert mode reads each batch once and skips the rows that did not change. Scores are rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UpsertBenchmark {
+
+    public static final int ROWS = 10_000;
+    public static final int BATCH_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeJdbcRepository employeeJdbcRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<Employee> employees;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark", "logging.level.root=WARN")
+                .run();
+        employeeJdbcRepository = context.getBean(EmployeeJdbcRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(ImportDataSourceConfiguration.IMPORT_TRANSACTION_MANAGER, PlatformTransactionManager.class));
+        employees = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++){
+            employees.add(new Employee("e" + i, "login" + i, "Name " + i, 1000.0 + i, LocalDate.of(2001, 11, 16)));
+        }
+        this.overwriteReupload();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void overwriteReupload(){
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < employees.size(); from += BATCH_SIZE){
+                employeeJdbcRepository.saveAll(employees.subList(from, Math.min(from + BATCH_SIZE, employees.size())));
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public UploadProgress upsertReupload(){
+        UploadProgress progress = new UploadProgress();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < employees.size(); from += BATCH_SIZE){
+                employeeJdbcRepository.upsertAll(employees.subList(from, Math.min(from + BATCH_SIZE, employees.size())), progress);
+            }
+        });
+        return progress;
+    }
+}
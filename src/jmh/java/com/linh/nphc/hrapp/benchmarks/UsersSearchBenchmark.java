@@ -0,0 +1,67 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import com.linh.nphc.hrapp.controllers.EmployeeRestController;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the /users searches clients send most, taken through the controller with the search cache off,
+ * at several table sizes: a salary range page, a name substring page, a page deep into the table and a count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class UsersSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRestController employeeRestController;
+
+    @Setup(Level.Trial)
+    public void startApplication(){
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN",
+                        "--hrapp.cache.searches.maximum-rows=0");
+        context.getBean(EmployeeService.class).processFile(new MockMultipartFile("employees.csv", SyntheticEmployees.csv(rows)));
+        employeeRestController = context.getBean(EmployeeRestController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> salaryRange(){
+        return employeeRestController.getEmployees(1000.0, 1100.0, null, null, null, 0, 20, "salary", "ASC");
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> nameSubstring(){
+        return employeeRestController.getEmployees(0.0, 4000.0, null, null, "Name 4242", 0, 20, "name", "ASC");
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> deepPage(){
+        return employeeRestController.getEmployees(0.0, 4000.0, null, null, null, rows / 2, 20, "id", "ASC");
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> count(){
+        return employeeRestController.countEmployees(1000.0, 1100.0, null, null, null);
+    }
+}
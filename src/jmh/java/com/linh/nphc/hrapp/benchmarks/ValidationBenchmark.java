@@ -0,0 +1,45 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.services.EmployeeValidator;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating one valid employee row with a factory built per call (the previous behaviour),
+ * a shared Bean Validation validator and the hand-written upload validator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final Employee employee = new Employee("e0001", "hpotter", "Harry Potter", 1234.0, LocalDate.of(2001, 11, 16));
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final EmployeeValidator employeeValidator = new EmployeeValidator();
+
+    @Benchmark
+    public Set<ConstraintViolation<Employee>> factoryPerCall(){
+        return Validation.buildDefaultValidatorFactory().getValidator().validate(employee);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Employee>> sharedValidator(){
+        return validator.validate(employee);
+    }
+
+    @Benchmark
+    public Employee fastPathValidator(){
+        employeeValidator.validate(employee);
+        return employee;
+    }
+}
@@ -0,0 +1,112 @@
+package com.linh.nphc.hrapp.benchmarks;
+
+import com.linh.nphc.hrapp.HrappApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test over HTTP mixing synchronous uploads with GET /users/{id} reads, with more concurrent uploads than
+ * Tomcat worker threads, on the platform thread pool and with hrapp.threads.virtual. Scores are latency percentiles
+ * for each kind of request; the sample counts give the throughput. The virtual mode needs Java 21 or later.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class VirtualThreadsLoadBenchmark {
+
+    public static final int EMPLOYEES = 10_000;
+    public static final int UPLOAD_ROWS = 20_000;
+    private static final String BOUNDARY = "benchmark-boundary";
+
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private final AtomicInteger uploaders = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        context = new SpringApplicationBuilder(HrappApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0", "--spring.datasource.url=jdbc:h2:mem:benchmark", "--logging.level.root=WARN",
+                        "--server.tomcat.threads.max=8", "--hrapp.threads.virtual=" + virtual,
+                        "--hrapp.upload.delta.enabled=false", "--hrapp.cache.employees.maximum-size=0");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        this.upload(SyntheticEmployees.csv(EMPLOYEES));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication(){
+        context.close();
+    }
+
+    /**
+     * Each upload thread writes its own range of employees, after the ones the readers look up.
+     */
+    @State(Scope.Thread)
+    public static class UploadFile {
+
+        private byte[] content;
+
+        @Setup(Level.Trial)
+        public void createFile(VirtualThreadsLoadBenchmark benchmark){
+            content = SyntheticEmployees.csv(EMPLOYEES + benchmark.uploaders.getAndIncrement() * UPLOAD_ROWS, UPLOAD_ROWS);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(12)
+    public int upload(UploadFile file) throws IOException {
+        return this.upload(file.content);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int read() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/users/e" + ThreadLocalRandom.current().nextInt(EMPLOYEES)).openConnection();
+        return this.complete(connection);
+    }
+
+    private int upload(byte[] content) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/users/upload").openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+        try (OutputStream body = connection.getOutputStream()){
+            body.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"employees.csv\"\r\n" +
+                    "Content-Type: text/csv\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            body.write(content);
+            body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        return this.complete(connection);
+    }
+
+    private int complete(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        try (InputStream response = status < 400 ? connection.getInputStream() : connection.getErrorStream()){
+            byte[] buffer = new byte[8192];
+            while (response != null && response.read(buffer) >= 0){
+                // Drained so the connection can be reused
+            }
+        }
+        return status;
+    }
+}
@@ -0,0 +1,56 @@
+package com.linh.nphc.hrapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * Gives imports their own connection pool, so a long upload transaction never takes a connection that
+ * GET /users needs. Both pools connect with the spring.datasource settings; the import pool is sized by
+ * hrapp.import.datasource.maximum-pool-size and should cover the synchronous and background imports allowed at once.
+ * Declaring a second pool turns off Boot's own DataSource and transaction manager, so the primary ones are declared
+ * here as Boot would build them.
+ */
+@Configuration
+public class ImportDataSourceConfiguration {
+
+    public static final String IMPORT_DATA_SOURCE = "importDataSource";
+    public static final String IMPORT_TRANSACTION_MANAGER = "importTransactionManager";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties){
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory){
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean(name = IMPORT_DATA_SOURCE)
+    public HikariDataSource importDataSource(DataSourceProperties properties,
+                                             @Value("${hrapp.import.datasource.maximum-pool-size:4}") int maximumPoolSize){
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("import");
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+
+    @Bean(name = IMPORT_TRANSACTION_MANAGER)
+    public DataSourceTransactionManager importTransactionManager(@Qualifier(IMPORT_DATA_SOURCE) DataSource importDataSource){
+        return new DataSourceTransactionManager(importDataSource);
+    }
+}
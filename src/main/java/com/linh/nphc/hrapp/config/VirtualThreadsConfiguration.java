@@ -0,0 +1,217 @@
+package com.linh.nphc.hrapp.config;
+
+import com.linh.nphc.hrapp.services.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Runs every request on its own virtual thread instead of Tomcat's fixed worker pool, so slow uploads cannot hold up
+ * cheap reads by using up the pool. As the number of threads is no longer bounded, the requests that use the database
+ * take a permit first, which keeps the callers of each connection pool near its size instead of timing out in it.
+ * Reads wait on a virtual thread for one of max-concurrent-reads permits. Streamed responses (/users?stream=true and
+ * /users/export) hold their connection until the last row is written, so they wait for one of max-concurrent-streams
+ * permits instead and cannot starve the short reads. Imports (synchronous uploads and /users/import) get as many
+ * permits as the import bulkhead admits, hrapp.import.max-concurrent plus hrapp.import.queue-capacity, and are
+ * answered 429 like the bulkhead does when none is free rather than waiting. Upload job submission and polling take
+ * no permit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hrapp.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+    private static final String UPLOAD_PATH = "/users/upload";
+    private static final String IMPORT_PATH = "/users/import";
+    private static final String USERS_PATH = "/users";
+    private static final String EXPORT_PATH = "/users/export";
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutor(VirtualThreads virtualThreads){
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreads.newThreadPerTaskExecutor("http-virtual-"));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> readConcurrencyLimit(
+            @Value("${hrapp.threads.virtual.max-concurrent-reads:20}") int maxConcurrentReads){
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(
+                new Semaphore(maxConcurrentReads, true),
+                request -> !path(request).startsWith(UPLOAD_PATH) && !isImport(request) && !isStream(request)));
+        registration.setName("readConcurrencyLimit");
+        registration.addUrlPatterns(USERS_PATH, USERS_PATH + "/*");
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> streamConcurrencyLimit(
+            @Value("${hrapp.threads.virtual.max-concurrent-streams:4}") int maxConcurrentStreams){
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(
+                new Semaphore(maxConcurrentStreams, true), VirtualThreadsConfiguration::isStream));
+        registration.setName("streamConcurrencyLimit");
+        registration.addUrlPatterns(USERS_PATH, EXPORT_PATH);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> importConcurrencyLimit(
+            @Value("${hrapp.import.max-concurrent:2}") int maxConcurrentImports,
+            @Value("${hrapp.import.queue-capacity:4}") int importQueueCapacity,
+            @Value("${hrapp.import.retry-after-seconds:30}") long retryAfterSeconds){
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(
+                new Semaphore(maxConcurrentImports + importQueueCapacity), VirtualThreadsConfiguration::isImport, retryAfterSeconds));
+        registration.setName("importConcurrencyLimit");
+        registration.addUrlPatterns(UPLOAD_PATH, IMPORT_PATH);
+        return registration;
+    }
+
+    /**
+     * A synchronous upload or an import from path; asynchronous uploads only queue a job, which the job pool bounds.
+     * The async flag is read from the query string so that the multipart body is not parsed before the permit.
+     */
+    static boolean isImport(HttpServletRequest request){
+        if (!HttpMethod.POST.matches(request.getMethod())){
+            return false;
+        }
+        String path = path(request);
+        if (IMPORT_PATH.equals(path)){
+            return true;
+        }
+        return UPLOAD_PATH.equals(path) && !hasParameter(request, "async=true");
+    }
+
+    /**
+     * A read whose response is streamed: an export, or a search in stream mode.
+     */
+    static boolean isStream(HttpServletRequest request){
+        if (!HttpMethod.GET.matches(request.getMethod())){
+            return false;
+        }
+        String path = path(request);
+        return EXPORT_PATH.equals(path) || (USERS_PATH.equals(path) && hasParameter(request, "stream=true"));
+    }
+
+    private static boolean hasParameter(HttpServletRequest request, String parameter){
+        String query = request.getQueryString();
+        return query != null && Arrays.asList(query.split("&")).contains(parameter);
+    }
+
+    private static String path(HttpServletRequest request){
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Lets the matching requests through once a permit is free, or, when given a retry-after, answers 429 straight
+     * away if none is. The permit is returned when the request ends, or, when the request went asynchronous, once the
+     * async processing completes, fails or times out.
+     */
+    static class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+        private static final String REJECTED_BODY = "{\"message\":\"Too many uploads in progress, please try again later\"}";
+
+        private final Semaphore permits;
+        private final Predicate<HttpServletRequest> limited;
+        private final Long retryAfterSeconds;
+
+        ConcurrencyLimitFilter(Semaphore permits, Predicate<HttpServletRequest> limited){
+            this(permits, limited, null);
+        }
+
+        ConcurrencyLimitFilter(Semaphore permits, Predicate<HttpServletRequest> limited, Long retryAfterSeconds){
+            this.permits = permits;
+            this.limited = limited;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request){
+            return !limited.test(request);
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            if (!this.acquire(response)){
+                return;
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            boolean async = false;
+            try {
+                chain.doFilter(request, response);
+                if (request.isAsyncStarted()){
+                    request.getAsyncContext().addListener(new AsyncListener() {
+                        @Override
+                        public void onComplete(AsyncEvent event){
+                            release(released);
+                        }
+
+                        @Override
+                        public void onTimeout(AsyncEvent event){
+                            release(released);
+                        }
+
+                        @Override
+                        public void onError(AsyncEvent event){
+                            release(released);
+                        }
+
+                        @Override
+                        public void onStartAsync(AsyncEvent event){
+                            event.getAsyncContext().addListener(this);
+                        }
+                    });
+                    async = true;
+                }
+            } finally {
+                if (!async){
+                    this.release(released);
+                }
+            }
+        }
+
+        private boolean acquire(HttpServletResponse response) throws IOException {
+            if (retryAfterSeconds != null){
+                if (permits.tryAcquire()){
+                    return true;
+                }
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write(REJECTED_BODY);
+                return false;
+            }
+            try {
+                permits.acquire();
+                return true;
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return false;
+            }
+        }
+
+        private void release(AtomicBoolean released){
+            if (released.compareAndSet(false, true)){
+                permits.release();
+            }
+        }
+    }
+}
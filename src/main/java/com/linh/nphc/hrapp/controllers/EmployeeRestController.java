@@ -1,16 +1,24 @@
 package com.linh.nphc.hrapp.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
 import com.linh.nphc.hrapp.models.*;
 import com.linh.nphc.hrapp.services.EmployeeService;
 import org.aspectj.bridge.Message;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -27,6 +35,12 @@ public class EmployeeRestController {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${hrapp.search.max-page-size:1000}")
+    private int maxPageSize;
+
     @GetMapping(value = "/users")
     public ResponseEntity<Object> getEmployees( @RequestParam(name = "minSalary", required = false, defaultValue = DEFAULT_MIN_SALARY) Double minSalary,
                                                 @RequestParam(name = "maxSalary", required = false, defaultValue = DEFAULT_MAX_SALARY) Double maxSalary,
@@ -49,6 +63,121 @@ public class EmployeeRestController {
         }
     }
 
+    /**
+     * Keyset mode: pass an empty cursor for the first page, then the "next" value of each response until it is absent.
+     * Rows are ordered by the sort column and then id, so pages stay stable however deep the client walks.
+     */
+    @GetMapping(value = "/users", params = {"cursor", "stream!=true"})
+    public ResponseEntity<Object> getEmployeesByCursor( @RequestParam(name = "minSalary", required = false, defaultValue = DEFAULT_MIN_SALARY) Double minSalary,
+                                                        @RequestParam(name = "maxSalary", required = false, defaultValue = DEFAULT_MAX_SALARY) Double maxSalary,
+                                                        @RequestParam(name = "id", required = false) String id,
+                                                        @RequestParam(name = "login", required = false) String login,
+                                                        @RequestParam(name = "name", required = false) String name,
+                                                        @RequestParam(name = "limit", required = false) Integer limit,
+                                                        @RequestParam(name = "sort", required = false, defaultValue = DEFAULT_SORT) String sort,
+                                                        @RequestParam(name = "order", required = false, defaultValue = DEFAULT_ORDER) String order,
+                                                        @RequestParam(name = "cursor") String cursor){
+        try{
+            this.validateRequest(minSalary, maxSalary, 0, limit, sort, order);
+            Sort.Direction direction = Sort.Direction.fromString(order);
+            KeysetCursor after = this.getCursor(cursor, sort, direction);
+            int pageSize = Optional.ofNullable(limit).orElse(maxPageSize);
+
+            List<Employee> employees = this.employeeService.getEmployeesAfter(minSalary, maxSalary, id, login, name, sort, direction, after, pageSize);
+            String next = !employees.isEmpty() && employees.size() == pageSize
+                    ? KeysetCursor.after(employees.get(employees.size() - 1), sort, direction).encode()
+                    : null;
+            return new ResponseEntity<>(new EmployeeResponse(employees, next), HttpStatus.OK);
+        } catch (InvalidFieldException e){
+            return new ResponseEntity<>(new MessageResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e){
+            return new ResponseEntity<>(new MessageResponse(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Number of employees matching the /users filters, for clients that need to show the page count.
+     * Only counted when asked for, so plain searches do not pay for it.
+     */
+    @GetMapping(value = "/users/count")
+    public ResponseEntity<Object> countEmployees( @RequestParam(name = "minSalary", required = false, defaultValue = DEFAULT_MIN_SALARY) Double minSalary,
+                                                  @RequestParam(name = "maxSalary", required = false, defaultValue = DEFAULT_MAX_SALARY) Double maxSalary,
+                                                  @RequestParam(name = "id", required = false) String id,
+                                                  @RequestParam(name = "login", required = false) String login,
+                                                  @RequestParam(name = "name", required = false) String name){
+        try{
+            this.validateRequest(minSalary, maxSalary, 0, null, null, DEFAULT_ORDER);
+            return new ResponseEntity<>(new CountResponse(this.employeeService.countEmployees(minSalary, maxSalary, id, login, name)), HttpStatus.OK);
+        } catch (InvalidFieldException e){
+            return new ResponseEntity<>(new MessageResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e){
+            return new ResponseEntity<>(new MessageResponse(e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Streaming mode: the same {"result":[...]} body as offset mode, written row by row as the database returns them,
+     * so memory use does not depend on how many employees match. The limit is optional and not capped at
+     * max-page-size, which makes this the only way to read more than that many employees in one request.
+     * Streams are read by offset; a cursor is rejected.
+     */
+    @GetMapping(value = "/users", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamEmployees( @RequestParam(name = "minSalary", required = false, defaultValue = DEFAULT_MIN_SALARY) Double minSalary,
+                                                                  @RequestParam(name = "maxSalary", required = false, defaultValue = DEFAULT_MAX_SALARY) Double maxSalary,
+                                                                  @RequestParam(name = "id", required = false) String id,
+                                                                  @RequestParam(name = "login", required = false) String login,
+                                                                  @RequestParam(name = "name", required = false) String name,
+                                                                  @RequestParam(name = "offset", required = false, defaultValue = DEFAULT_OFFSET) Integer offset,
+                                                                  @RequestParam(name = "limit", required = false) Integer limit,
+                                                                  @RequestParam(name = "sort", required = false, defaultValue = DEFAULT_SORT) String sort,
+                                                                  @RequestParam(name = "order", required = false, defaultValue = DEFAULT_ORDER) String order,
+                                                                  @RequestParam(name = "cursor", required = false) String cursor){
+        try{
+            if (cursor != null){
+                throw new InvalidFieldException("Cursor cannot be used with stream");
+            }
+            if (limit != null && limit < 0){
+                throw new InvalidFieldException("Limit must be greater than 0");
+            }
+            this.validateRequest(minSalary, maxSalary, offset, null, sort, order);
+        } catch (InvalidFieldException e){
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, new MessageResponse(e.getMessage())));
+        }
+        Sort sorting = Sort.by(Sort.Direction.fromString(order), sort);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)){
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("result");
+                this.employeeService.streamEmployees(minSalary, maxSalary, id, login, name, sorting, offset, limit,
+                        employee -> this.writeEmployee(generator, employee));
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } catch (UncheckedIOException e){
+                throw e.getCause();
+            }
+        });
+    }
+
+    private void writeEmployee(JsonGenerator generator, Employee employee){
+        try {
+            generator.writeObject(employee);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private KeysetCursor getCursor(String cursor, String sort, Sort.Direction direction){
+        if (cursor == null || cursor.isEmpty()){
+            return null;
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (!after.getSort().equals(sort) || after.getDirection() != direction){
+            throw new InvalidFieldException("Invalid cursor");
+        }
+        return after;
+    }
+
     private void validateRequest(Double minSalary, Double maxSalary, Integer offset, Integer limit, String sort, String orderStr){
         if (minSalary != null && minSalary < 0){
             throw new InvalidFieldException("Min salary must be greater than 0");
@@ -66,6 +195,9 @@ public class EmployeeRestController {
         if (limit != null && limit < 0){
             throw new InvalidFieldException("Limit must be greater than 0");
         }
+        if (limit != null && limit > maxPageSize){
+            throw new InvalidFieldException(String.format("Limit cannot be greater than %d", maxPageSize));
+        }
         if (sort != null && !Stream.of("id", "name", "login", "salary").collect(Collectors.toList()).contains(sort)){
             throw new InvalidFieldException("Invalid sorting");
         };
@@ -87,7 +219,7 @@ public class EmployeeRestController {
                                   Integer limit,
                                   String sort,
                                   String orderStr){
-        limit = Optional.ofNullable(limit).orElse(Integer.MAX_VALUE);
+        limit = Optional.ofNullable(limit).orElse(maxPageSize);
         Sort.Direction order = orderStr == null ? Sort.Direction.ASC : Sort.Direction.valueOf(orderStr);
         return new OffsetBasedPageRequest(offset, limit, Sort.by(order, sort));
     }
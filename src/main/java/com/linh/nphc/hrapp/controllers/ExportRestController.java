@@ -0,0 +1,86 @@
+package com.linh.nphc.hrapp.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linh.nphc.hrapp.models.MessageResponse;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import com.opencsv.CSVWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports employees in the CSV format /users/upload accepts, written to the response as the rows are read,
+ * so memory use does not depend on the size of the table.
+ */
+@RestController
+public class ExportRestController {
+
+    private static final String[] HEADER = {"id", "login", "name", "salary", "startDate"};
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping(value = "/users/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(name = "minSalary", required = false) Double minSalary,
+                                                        @RequestParam(name = "maxSalary", required = false) Double maxSalary,
+                                                        @RequestParam(name = "login", required = false) String login,
+                                                        @RequestParam(name = "name", required = false) String name,
+                                                        @RequestParam(name = "gzip", required = false, defaultValue = "false") boolean gzip){
+        String error = this.validateRequest(minSalary, maxSalary);
+        if (error != null){
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, new MessageResponse(error)));
+        }
+        String fileName = gzip ? "employees.csv.gz" : "employees.csv";
+        return ResponseEntity.ok()
+                .contentType(gzip ? APPLICATION_GZIP : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(out -> {
+                    OutputStream target = gzip ? new GZIPOutputStream(out) : out;
+                    try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8))){
+                        writer.writeNext(HEADER, false);
+                        this.employeeService.exportEmployees(minSalary, maxSalary, login, name, row -> this.writeRow(writer, row));
+                    }
+                });
+    }
+
+    /**
+     * CSVWriter keeps write failures to itself, so stop reading the table once the client has gone away.
+     */
+    private void writeRow(CSVWriter writer, String[] row){
+        writer.writeNext(row, false);
+        if (writer.getException() != null){
+            throw new UncheckedIOException(writer.getException());
+        }
+    }
+
+    private String validateRequest(Double minSalary, Double maxSalary){
+        if (minSalary != null && minSalary < 0){
+            return "Min salary must be greater than 0";
+        }
+        if (maxSalary != null && maxSalary < 0){
+            return "Max salary must be greater than 0";
+        }
+        if (minSalary != null && maxSalary != null && maxSalary < minSalary){
+            return "Max salary cannot be less than min salary";
+        }
+        return null;
+    }
+}
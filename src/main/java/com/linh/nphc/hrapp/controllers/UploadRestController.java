@@ -4,36 +4,143 @@ import com.linh.nphc.hrapp.exceptions.DuplicateRowException;
 import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
 import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
 import com.linh.nphc.hrapp.exceptions.UnableToSaveEmployeeException;
+import com.linh.nphc.hrapp.exceptions.UploadRejectedException;
 import com.linh.nphc.hrapp.models.MessageResponse;
+import com.linh.nphc.hrapp.models.UploadJob;
+import com.linh.nphc.hrapp.models.UploadOutcome;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import com.linh.nphc.hrapp.models.UploadResponse;
 import com.linh.nphc.hrapp.services.EmployeeService;
+import com.linh.nphc.hrapp.services.ImportBulkhead;
+import com.linh.nphc.hrapp.services.UploadJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 @RestController
 public class UploadRestController {
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private UploadJobService uploadJobService;
+
+    @Autowired
+    private ImportBulkhead importBulkhead;
+
+    @Value("${hrapp.import.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
     @PostMapping
     @RequestMapping("/users/upload")
     public ResponseEntity<MessageResponse> upload(@RequestParam("file") MultipartFile file){
         try{
-            employeeService.processFile(file);
-            return new ResponseEntity<>(new MessageResponse("Data is created"), HttpStatus.CREATED);
-        } catch (UnableToSaveEmployeeException | DataIntegrityViolationException ex){
-            return new ResponseEntity<>(new MessageResponse("File is uploaded but not processed - "+ex.getMessage()), HttpStatus.OK);
-        } catch (UnableToReadFileException | InvalidFieldException | DuplicateRowException ex){
-            return new ResponseEntity<>(new MessageResponse(ex.getMessage()), HttpStatus.BAD_REQUEST);
+            UploadProgress progress = new UploadProgress();
+            importBulkhead.run(() -> employeeService.processFile(file, progress));
+            UploadOutcome outcome = UploadOutcome.created();
+            return new ResponseEntity<>(UploadResponse.uploaded(outcome.getMessage(), progress), outcome.getStatus());
+        } catch (UnableToSaveEmployeeException | DataIntegrityViolationException |
+                 UnableToReadFileException | InvalidFieldException | DuplicateRowException ex){
+            return this.toResponse(UploadOutcome.failed(ex));
+        } catch (UploadRejectedException ex){
+            return new ResponseEntity<>(new MessageResponse(ex.getMessage()), this.retryAfter(), HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+    }
+
+    /**
+     * Idempotent upload: uploading the same file again leaves the data as it is and reports every row as unchanged.
+     */
+    @PostMapping(value = "/users/upload", params = {"mode=upsert", "async!=true"})
+    public ResponseEntity<MessageResponse> upsert(@RequestParam("file") MultipartFile file){
+        try{
+            UploadProgress progress = new UploadProgress();
+            importBulkhead.run(() -> employeeService.upsertFile(file, progress));
+            UploadOutcome outcome = UploadOutcome.created();
+            return new ResponseEntity<>(UploadResponse.upserted(outcome.getMessage(), progress), outcome.getStatus());
+        } catch (UnableToSaveEmployeeException | DataIntegrityViolationException |
+                 UnableToReadFileException | InvalidFieldException | DuplicateRowException ex){
+            return this.toResponse(UploadOutcome.failed(ex));
+        } catch (UploadRejectedException ex){
+            return new ResponseEntity<>(new MessageResponse(ex.getMessage()), this.retryAfter(), HttpStatus.TOO_MANY_REQUESTS);
         }
+    }
 
+    /**
+     * Imports a CSV file that is already on the server, given relative to hrapp.import.base-dir.
+     */
+    @PostMapping(value = "/users/import")
+    public ResponseEntity<MessageResponse> importPath(@RequestParam("path") String path){
+        try{
+            UploadProgress progress = new UploadProgress();
+            importBulkhead.run(() -> employeeService.importPath(path, progress));
+            UploadOutcome outcome = UploadOutcome.created();
+            return new ResponseEntity<>(UploadResponse.uploaded(outcome.getMessage(), progress), outcome.getStatus());
+        } catch (UnableToSaveEmployeeException | DataIntegrityViolationException |
+                 UnableToReadFileException | InvalidFieldException | DuplicateRowException ex){
+            return this.toResponse(UploadOutcome.failed(ex));
+        } catch (UploadRejectedException ex){
+            return new ResponseEntity<>(new MessageResponse(ex.getMessage()), this.retryAfter(), HttpStatus.TOO_MANY_REQUESTS);
+        }
+    }
+
+    /**
+     * Queues the upload as a background job, polled through GET /users/upload/{jobId}; mode=upsert is honoured.
+     */
+    @PostMapping(value = "/users/upload", params = "async=true")
+    public ResponseEntity<Object> uploadAsync(@RequestParam("file") MultipartFile file,
+                                              @RequestParam(name = "mode", required = false) String mode){
+        Path copy = null;
+        try{
+            copy = Files.createTempFile("employees-upload-", ".csv");
+            file.transferTo(copy);
+            UploadJob job = uploadJobService.submit(copy, "upsert".equals(mode) ? UploadJob.Mode.UPSERT : UploadJob.Mode.INSERT);
+            return ResponseEntity.accepted().location(URI.create("/users/upload/" + job.getJobId())).body(job);
+        } catch (UploadRejectedException ex){
+            return new ResponseEntity<>(new MessageResponse(ex.getMessage()), this.retryAfter(), HttpStatus.TOO_MANY_REQUESTS);
+        } catch (IOException ex){
+            this.deleteQuietly(copy);
+            return new ResponseEntity<>(new MessageResponse(String.format("Unable to read file %s", ex.getMessage())), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping(value = "/users/upload/{jobId}")
+    public ResponseEntity<Object> getUploadJob(@PathVariable("jobId") String jobId){
+        return uploadJobService.getJob(jobId)
+                .<ResponseEntity<Object>>map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(new MessageResponse("No such upload job"), HttpStatus.NOT_FOUND));
+    }
+
+    private ResponseEntity<MessageResponse> toResponse(UploadOutcome outcome){
+        return new ResponseEntity<>(new MessageResponse(outcome.getMessage()), outcome.getStatus());
+    }
+
+    /**
+     * Sent with 429 when the import queues are full, telling clients how long to back off.
+     */
+    private HttpHeaders retryAfter(){
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+
+    private void deleteQuietly(Path file){
+        try{
+            if (file != null){
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ignored){}
     }
 
 }
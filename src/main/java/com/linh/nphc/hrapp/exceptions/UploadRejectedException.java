@@ -0,0 +1,8 @@
+package com.linh.nphc.hrapp.exceptions;
+
+public class UploadRejectedException extends RuntimeException{
+    public UploadRejectedException(String message){
+        super(message);
+    }
+
+}
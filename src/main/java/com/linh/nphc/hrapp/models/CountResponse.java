@@ -0,0 +1,14 @@
+package com.linh.nphc.hrapp.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class CountResponse {
+
+    private long total;
+
+}
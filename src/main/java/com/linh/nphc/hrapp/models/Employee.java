@@ -1,5 +1,6 @@
 package com.linh.nphc.hrapp.models;
 
+import com.linh.nphc.hrapp.services.EmployeeEntityListener;
 import lombok.*;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.validator.constraints.UniqueElements;
@@ -12,6 +13,11 @@ import javax.validation.constraints.Pattern;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(EmployeeEntityListener.class)
+@Table(indexes = {
+        @Index(name = "idx_employee_salary_id", columnList = "salary, id"),
+        @Index(name = "idx_employee_name_id", columnList = "name, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
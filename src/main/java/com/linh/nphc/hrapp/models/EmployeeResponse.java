@@ -1,5 +1,6 @@
 package com.linh.nphc.hrapp.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -9,8 +10,18 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class EmployeeResponse {
 
     private List<Employee> result;
 
+    /**
+     * Cursor for the next page in keyset mode, absent on the last page and in offset mode.
+     */
+    private String next;
+
+    public EmployeeResponse(List<Employee> result){
+        this.result = result;
+    }
+
 }
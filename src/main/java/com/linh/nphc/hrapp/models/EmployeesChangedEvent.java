@@ -0,0 +1,21 @@
+package com.linh.nphc.hrapp.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Published once per committed transaction that saved or deleted employees, for the in-memory views of the table.
+ * Carries only the ids: listeners read those rows back as committed, so an event applied after a newer one still
+ * leaves the latest values in place. A transaction that changed more than hrapp.changes.max-tracked-ids employees
+ * publishes no ids and asks for a full reload instead.
+ */
+@AllArgsConstructor
+@Getter
+public class EmployeesChangedEvent {
+
+    private final Set<String> ids;
+    private final boolean fullReload;
+
+}
@@ -0,0 +1,67 @@
+package com.linh.nphc.hrapp.models;
+
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.io.*;
+import java.util.Base64;
+
+/**
+ * Position after the last employee of a page when paging by sort key instead of offset.
+ * Encoded as an opaque URL-safe token holding the sort column, direction, the last row's sort value and its id.
+ */
+@AllArgsConstructor
+@Getter
+public class KeysetCursor {
+
+    private static final String SALARY = "salary";
+
+    private final String sort;
+    private final Sort.Direction direction;
+    private final Object value;
+    private final String id;
+
+    public static KeysetCursor after(Employee employee, String sort, Sort.Direction direction){
+        Object value;
+        switch (sort){
+            case "name": value = employee.getName(); break;
+            case "login": value = employee.getLogin(); break;
+            case SALARY: value = employee.getSalary(); break;
+            default: value = employee.getId();
+        }
+        return new KeysetCursor(sort, direction, value, employee.getId());
+    }
+
+    public String encode(){
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(); DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(sort);
+            out.writeUTF(direction.name());
+            if (SALARY.equals(sort)){
+                out.writeDouble((Double) value);
+            } else {
+                out.writeUTF((String) value);
+            }
+            out.writeUTF(id);
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws InvalidFieldException when the token is malformed
+     */
+    public static KeysetCursor decode(String token){
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            String sort = in.readUTF();
+            Sort.Direction direction = Sort.Direction.valueOf(in.readUTF());
+            Object value = SALARY.equals(sort) ? (Object) in.readDouble() : in.readUTF();
+            return new KeysetCursor(sort, direction, value, in.readUTF());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidFieldException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.linh.nphc.hrapp.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * An upload running in the background, polled through GET /users/upload/{jobId}.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * How the rows are written: INSERT as POST /users/upload does, UPSERT as mode=upsert does.
+     */
+    public enum Mode { INSERT, UPSERT }
+
+    private final String jobId;
+    private final Mode mode;
+    @JsonIgnore
+    private final UploadProgress progress = new UploadProgress();
+    private volatile Status status = Status.QUEUED;
+    @JsonIgnore
+    private volatile long startedAt;
+    @JsonIgnore
+    private volatile long finishedAt;
+    @JsonIgnore
+    private volatile UploadOutcome outcome;
+
+    public UploadJob(String jobId, Mode mode){
+        this.jobId = jobId;
+        this.mode = mode;
+    }
+
+    public void start(){
+        this.startedAt = System.currentTimeMillis();
+        this.status = Status.RUNNING;
+    }
+
+    public void finish(UploadOutcome outcome){
+        this.finishedAt = System.currentTimeMillis();
+        this.outcome = outcome;
+        this.status = outcome.getStatus() == HttpStatus.CREATED ? Status.COMPLETED : Status.FAILED;
+    }
+
+    public long getRowsParsed(){
+        return progress.getRowsParsed();
+    }
+
+    public long getRowsWritten(){
+        return progress.getRowsWritten();
+    }
+
+    public long getRowsSkipped(){
+        return progress.getRowsSkipped();
+    }
+
+    /**
+     * @return for upsert jobs, the rows inserted so far; null otherwise, like the synchronous responses
+     */
+    public Long getRowsInserted(){
+        return mode == Mode.UPSERT ? progress.getRowsInserted() : null;
+    }
+
+    public Long getRowsUpdated(){
+        return mode == Mode.UPSERT ? progress.getRowsUpdated() : null;
+    }
+
+    public Long getRowsUnchanged(){
+        return mode == Mode.UPSERT ? progress.getRowsUnchanged() : null;
+    }
+
+    public double getRowsPerSecond(){
+        if (startedAt == 0){
+            return 0;
+        }
+        long elapsed = (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+        return elapsed == 0 ? progress.getRowsWritten() : progress.getRowsWritten() * 1000.0 / elapsed;
+    }
+
+    /**
+     * @return the status code the synchronous endpoint would have answered with, once the job is finished
+     */
+    public Integer getResultStatus(){
+        return outcome == null ? null : outcome.getStatus().value();
+    }
+
+    public String getMessage(){
+        return outcome == null ? null : outcome.getMessage();
+    }
+
+    @JsonIgnore
+    public boolean isFinished(){
+        return outcome != null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.linh.nphc.hrapp.models;
+
+import com.linh.nphc.hrapp.exceptions.DuplicateRowException;
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.linh.nphc.hrapp.exceptions.UnableToSaveEmployeeException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Status and message reported for a finished upload, shared by the synchronous endpoint and upload jobs.
+ */
+@AllArgsConstructor
+@Getter
+public class UploadOutcome {
+
+    private final HttpStatus status;
+    private final String message;
+
+    public static UploadOutcome created(){
+        return new UploadOutcome(HttpStatus.CREATED, "Data is created");
+    }
+
+    public static UploadOutcome failed(RuntimeException ex){
+        if (ex instanceof UnableToSaveEmployeeException || ex instanceof DataIntegrityViolationException){
+            return new UploadOutcome(HttpStatus.OK, "File is uploaded but not processed - " + ex.getMessage());
+        }
+        if (ex instanceof UnableToReadFileException || ex instanceof InvalidFieldException || ex instanceof DuplicateRowException){
+            return new UploadOutcome(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        return new UploadOutcome(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+    }
+}
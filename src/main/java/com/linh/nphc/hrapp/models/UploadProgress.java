@@ -0,0 +1,66 @@
+package com.linh.nphc.hrapp.models;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Row counters of an import, updated by the importing thread and read by whoever polls the job.
+ */
+public class UploadProgress {
+
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+    private final AtomicLong rowsSkipped = new AtomicLong();
+
+    public void rowParsed(){
+        rowsParsed.incrementAndGet();
+    }
+
+    public void rowsWritten(int rows){
+        rowsWritten.addAndGet(rows);
+    }
+
+    /**
+     * Outcome of an upsert batch; rows left unchanged are not written at all.
+     */
+    public void rowsMerged(int inserted, int updated, int unchanged){
+        rowsInserted.addAndGet(inserted);
+        rowsUpdated.addAndGet(updated);
+        rowsUnchanged.addAndGet(unchanged);
+        rowsWritten.addAndGet(inserted + updated);
+    }
+
+    /**
+     * Rows found identical to the stored employee in memory and never sent to the database.
+     */
+    public void rowsSkipped(int rows){
+        rowsSkipped.addAndGet(rows);
+        rowsUnchanged.addAndGet(rows);
+    }
+
+    public long getRowsParsed(){
+        return rowsParsed.get();
+    }
+
+    public long getRowsWritten(){
+        return rowsWritten.get();
+    }
+
+    public long getRowsInserted(){
+        return rowsInserted.get();
+    }
+
+    public long getRowsUpdated(){
+        return rowsUpdated.get();
+    }
+
+    public long getRowsUnchanged(){
+        return rowsUnchanged.get();
+    }
+
+    public long getRowsSkipped(){
+        return rowsSkipped.get();
+    }
+}
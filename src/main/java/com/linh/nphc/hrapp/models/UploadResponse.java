@@ -0,0 +1,35 @@
+package com.linh.nphc.hrapp.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+/**
+ * Upload result with row counts. Every upload reports the rows skipped because they matched the stored employee;
+ * upsert mode also reports how many rows were inserted, updated, or left unchanged.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadResponse extends MessageResponse {
+
+    private final Long inserted;
+    private final Long updated;
+    private final Long unchanged;
+    private final long skipped;
+
+    private UploadResponse(String message, Long inserted, Long updated, Long unchanged, long skipped){
+        super(message);
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.skipped = skipped;
+    }
+
+    public static UploadResponse uploaded(String message, UploadProgress progress){
+        return new UploadResponse(message, null, null, null, progress.getRowsSkipped());
+    }
+
+    public static UploadResponse upserted(String message, UploadProgress progress){
+        return new UploadResponse(message, progress.getRowsInserted(), progress.getRowsUpdated(), progress.getRowsUnchanged(),
+                progress.getRowsSkipped());
+    }
+}
@@ -0,0 +1,272 @@
+package com.linh.nphc.hrapp.repositories;
+
+import com.linh.nphc.hrapp.config.ImportDataSourceConfiguration;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC access to the employee table for bulk writes and exports.
+ * Runs inside the surrounding Spring transaction but bypasses the JPA persistence context,
+ * so rows are neither selected one by one before saving nor kept in memory after the batch is sent.
+ * Writes go through the import connection pool and join transactions of the import transaction manager;
+ * exports and the reads of committed rows for the in-memory views go through the primary pool.
+ */
+@Repository
+public class EmployeeJdbcRepository {
+
+    private static final String SELECT_EXISTING_IDS = "select id from employee where id in (:ids)";
+    private static final String INSERT_EMPLOYEE = "insert into employee (id, login, name, salary, start_date) " +
+            "values (:id, :login, :name, :salary, :startDate)";
+    private static final String UPDATE_EMPLOYEE = "update employee set login = :login, name = :name, salary = :salary, " +
+            "start_date = :startDate where id = :id";
+
+    private static final String SELECT_EXISTING_EMPLOYEES = "select id, login, name, salary, start_date from employee where id in (:ids)";
+    private static final String COLUMNS = "(id, login, name, salary, start_date)";
+    private static final String VALUES = "(:id, :login, :name, :salary, :startDate)";
+    private static final String H2_MERGE = "merge into employee " + COLUMNS + " key (id) values " + VALUES;
+    private static final String POSTGRES_UPSERT = "insert into employee " + COLUMNS + " values " + VALUES +
+            " on conflict (id) do update set login = excluded.login, name = excluded.name, salary = excluded.salary, " +
+            "start_date = excluded.start_date";
+    private static final String MYSQL_UPSERT = "insert into employee " + COLUMNS + " values " + VALUES +
+            " on duplicate key update login = values(login), name = values(name), salary = values(salary), " +
+            "start_date = values(start_date)";
+    private static final String STANDARD_MERGE = "merge into employee e using (values " + VALUES + ") " +
+            "s (id, login, name, salary, start_date) on e.id = s.id " +
+            "when matched then update set login = s.login, name = s.name, salary = s.salary, start_date = s.start_date " +
+            "when not matched then insert " + COLUMNS + " values (s.id, s.login, s.name, s.salary, s.start_date)";
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final int IDS_PER_QUERY = 1000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier(ImportDataSourceConfiguration.IMPORT_DATA_SOURCE)
+    private DataSource importDataSource;
+
+    @Value("${hrapp.search.name.case-insensitive:false}")
+    private boolean caseInsensitiveName;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate exportJdbcTemplate;
+    private NamedParameterJdbcTemplate readJdbcTemplate;
+    private String upsertSql;
+
+    @PostConstruct
+    public void createTemplates(){
+        jdbcTemplate = new NamedParameterJdbcTemplate(importDataSource);
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(EXPORT_FETCH_SIZE);
+        exportJdbcTemplate = new NamedParameterJdbcTemplate(template);
+        readJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        upsertSql = upsertSql(importDataSource);
+    }
+
+    /**
+     * The single-statement insert-or-update of the database in use: MERGE ... KEY on H2, ON CONFLICT on PostgreSQL,
+     * ON DUPLICATE KEY on MySQL and MariaDB, and standard MERGE elsewhere.
+     */
+    static String upsertSql(DataSource dataSource){
+        String product;
+        try {
+            product = JdbcUtils.commonDatabaseName(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            product = null;
+        }
+        if ("H2".equals(product)){
+            return H2_MERGE;
+        }
+        if ("PostgreSQL".equals(product)){
+            return POSTGRES_UPSERT;
+        }
+        if ("MySQL".equals(product) || "MariaDB".equals(product)){
+            return MYSQL_UPSERT;
+        }
+        return STANDARD_MERGE;
+    }
+
+    /**
+     * Inserts new employees and overwrites changed ones with the database's upsert statement in one JDBC batch,
+     * leaving rows that already hold the same values untouched so that uploading the same file again writes nothing.
+     * Reads the current rows of the whole batch with a single query to tell the three cases apart.
+     *
+     * @return the employees actually inserted or updated
+     */
+    public List<Employee> upsertAll(List<Employee> employees, UploadProgress progress){
+        if (employees.isEmpty()){
+            return Collections.emptyList();
+        }
+        Map<String, Employee> existing = this.findExisting(employees);
+        List<Employee> updated = new ArrayList<>();
+        List<Employee> inserted = new ArrayList<>();
+        for (Employee employee : employees){
+            Employee current = existing.get(employee.getId());
+            if (current == null){
+                inserted.add(employee);
+            } else if (!sameValues(current, employee)){
+                updated.add(employee);
+            }
+        }
+        // Updates first, so that a login moved away from an existing row can be taken by a new one
+        List<Employee> changed = new ArrayList<>(updated);
+        changed.addAll(inserted);
+        if (!changed.isEmpty()){
+            jdbcTemplate.batchUpdate(upsertSql, changed.stream().map(this::toParameters).toArray(MapSqlParameterSource[]::new));
+        }
+        progress.rowsMerged(inserted.size(), updated.size(), employees.size() - changed.size());
+        return changed;
+    }
+
+    private Map<String, Employee> findExisting(List<Employee> employees){
+        List<String> ids = employees.stream().map(Employee::getId).collect(Collectors.toList());
+        Map<String, Employee> existing = new HashMap<>();
+        jdbcTemplate.query(SELECT_EXISTING_EMPLOYEES, new MapSqlParameterSource("ids", ids), (RowCallbackHandler) resultSet -> {
+            Employee employee = toEmployee(resultSet);
+            existing.put(employee.getId(), employee);
+        });
+        return existing;
+    }
+
+    /**
+     * Reads the employees with the given ids as last committed, through the primary pool and a thousand ids
+     * per query. Ids with no row are left out.
+     */
+    public List<Employee> findCommitted(Collection<String> ids){
+        List<Employee> employees = new ArrayList<>(ids.size());
+        List<String> chunk = new ArrayList<>(Math.min(ids.size(), IDS_PER_QUERY));
+        Iterator<String> remaining = ids.iterator();
+        while (remaining.hasNext()){
+            chunk.add(remaining.next());
+            if (chunk.size() == IDS_PER_QUERY || !remaining.hasNext()){
+                employees.addAll(readJdbcTemplate.query(SELECT_EXISTING_EMPLOYEES, new MapSqlParameterSource("ids", chunk),
+                        (resultSet, row) -> toEmployee(resultSet)));
+                chunk.clear();
+            }
+        }
+        return employees;
+    }
+
+    private static Employee toEmployee(ResultSet resultSet) throws SQLException {
+        Number salary = (Number) resultSet.getObject(4);
+        Date startDate = resultSet.getDate(5);
+        return new Employee(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+                salary == null ? null : salary.doubleValue(), startDate == null ? null : startDate.toLocalDate());
+    }
+
+    private static boolean sameValues(Employee current, Employee employee){
+        return Objects.equals(current.getLogin(), employee.getLogin())
+                && Objects.equals(current.getName(), employee.getName())
+                && Objects.equals(current.getSalary(), employee.getSalary())
+                && Objects.equals(current.getStartDate(), employee.getStartDate());
+    }
+
+    /**
+     * Inserts or overwrites the given employees using one existence query and at most two JDBC batches.
+     * Updates are sent before inserts so that a login moved away from an existing row can be reused by a new one.
+     */
+    public void saveAll(List<Employee> employees){
+        if (employees.isEmpty()){
+            return;
+        }
+        Set<String> existingIds = this.findExistingIds(employees);
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        for (Employee employee : employees){
+            if (existingIds.contains(employee.getId())){
+                updates.add(this.toParameters(employee));
+            } else {
+                inserts.add(this.toParameters(employee));
+            }
+        }
+        if (!updates.isEmpty()){
+            jdbcTemplate.batchUpdate(UPDATE_EMPLOYEE, updates.toArray(new MapSqlParameterSource[0]));
+        }
+        if (!inserts.isEmpty()){
+            jdbcTemplate.batchUpdate(INSERT_EMPLOYEE, inserts.toArray(new MapSqlParameterSource[0]));
+        }
+    }
+
+    /**
+     * Reads the matching employees in id order through a forward-only cursor and hands each one to the consumer
+     * as the id, login, name, salary and start date columns that /users/upload reads, without building entities.
+     * The fetch size only bounds memory inside a transaction on some drivers, so callers should run it in one.
+     *
+     * @param ids when not null, the name filter already resolved to the matching ids
+     */
+    public void exportRows(Double minSalary, Double maxSalary, String login, String name, Collection<String> ids,
+                           Consumer<String[]> consumer){
+        StringBuilder sql = new StringBuilder("select id, login, name, salary, start_date from employee where 1 = 1");
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (minSalary != null){
+            sql.append(" and salary >= :minSalary");
+            parameters.addValue("minSalary", minSalary);
+        }
+        if (maxSalary != null){
+            sql.append(" and salary < :maxSalary");
+            parameters.addValue("maxSalary", maxSalary);
+        }
+        if (login != null){
+            sql.append(" and login = :login");
+            parameters.addValue("login", login);
+        }
+        if (name != null && caseInsensitiveName){
+            sql.append(" and lower(name) like :name");
+            parameters.addValue("name", "%" + name.toLowerCase(Locale.ROOT) + "%");
+        } else if (name != null){
+            sql.append(" and name like :name");
+            parameters.addValue("name", "%" + name + "%");
+        }
+        if (ids != null){
+            sql.append(" and id in (:ids)");
+            parameters.addValue("ids", ids);
+        }
+        sql.append(" order by id");
+        exportJdbcTemplate.query(sql.toString(), parameters, (RowCallbackHandler) resultSet -> {
+            Number salary = (Number) resultSet.getObject(4);
+            Date startDate = resultSet.getDate(5);
+            consumer.accept(new String[]{
+                    resultSet.getString(1),
+                    resultSet.getString(2),
+                    resultSet.getString(3),
+                    salary == null ? null : BigDecimal.valueOf(salary.doubleValue()).toPlainString(),
+                    startDate == null ? null : startDate.toLocalDate().toString()
+            });
+        });
+    }
+
+    private Set<String> findExistingIds(List<Employee> employees){
+        List<String> ids = employees.stream().map(Employee::getId).collect(Collectors.toList());
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_EXISTING_IDS, new MapSqlParameterSource("ids", ids), String.class));
+    }
+
+    private MapSqlParameterSource toParameters(Employee employee){
+        return new MapSqlParameterSource()
+                .addValue("id", employee.getId())
+                .addValue("login", employee.getLogin())
+                .addValue("name", employee.getName())
+                .addValue("salary", employee.getSalary())
+                .addValue("startDate", employee.getStartDate() == null ? null : Date.valueOf(employee.getStartDate()));
+    }
+}
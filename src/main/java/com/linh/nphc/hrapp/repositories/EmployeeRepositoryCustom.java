@@ -0,0 +1,57 @@
+package com.linh.nphc.hrapp.repositories;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.KeysetCursor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Employees with minSalary &lt;= salary &lt; maxSalary, filtered by exact id and login and by name substring
+     * when those are not null, ordered by the pageable's sort and then id.
+     */
+    List<Employee> findEmployeesBySalaryRangeAndNameAndLoginAndID(Double minSalary, Double maxSalary, String id, String login,
+                                                                  String name, Pageable pageable);
+
+    /**
+     * Same filters as findEmployeesBySalaryRangeAndNameAndLoginAndID, ordered by the sort column and then id,
+     * returning the rows strictly after the cursor instead of skipping an offset.
+     *
+     * @param after null for the first page
+     */
+    List<Employee> findEmployeesAfter(Double minSalary, Double maxSalary, String id, String login, String name,
+                                      String sort, Sort.Direction direction, KeysetCursor after, int limit);
+
+    /**
+     * findEmployeesBySalaryRangeAndNameAndLoginAndID with the name filter already resolved to the matching ids.
+     */
+    List<Employee> findEmployeesBySalaryRangeAndLoginAndIDAmong(Double minSalary, Double maxSalary, String id, String login,
+                                                                Collection<String> ids, Pageable pageable);
+
+    /**
+     * findEmployeesAfter with the name filter already resolved to the matching ids.
+     */
+    List<Employee> findEmployeesAfterAmong(Double minSalary, Double maxSalary, String id, String login, Collection<String> ids,
+                                           String sort, Sort.Direction direction, KeysetCursor after, int limit);
+
+    /**
+     * All employees matching the same filters as findEmployeesBySalaryRangeAndNameAndLoginAndID from the offset on,
+     * read forward-only and detached as they go so the persistence context does not grow with the result.
+     * Must be consumed and closed inside the transaction.
+     *
+     * @param ids when not null, the name filter already resolved to the matching ids
+     * @param limit when not null, the most employees to return
+     */
+    Stream<Employee> streamEmployees(Double minSalary, Double maxSalary, String id, String login, String name,
+                                     Collection<String> ids, Sort sort, long offset, Integer limit);
+
+    /**
+     * Number of employees matching the same filters as streamEmployees, counted without loading any of them.
+     */
+    long countEmployees(Double minSalary, Double maxSalary, String id, String login, String name, Collection<String> ids);
+}
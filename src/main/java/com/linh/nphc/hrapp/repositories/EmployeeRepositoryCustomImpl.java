@@ -0,0 +1,179 @@
+package com.linh.nphc.hrapp.repositories;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.KeysetCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Builds the employee search from only the filters actually supplied, so each combination gets its own plan:
+ * an id or login filter becomes an equality the database answers from the primary key or the unique login index,
+ * and the salary range alone is answered from the (salary, id) index.
+ */
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private static final String ID = "id";
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${hrapp.search.name.case-insensitive:false}")
+    private boolean caseInsensitiveName;
+
+    @Override
+    public List<Employee> findEmployeesBySalaryRangeAndNameAndLoginAndID(Double minSalary, Double maxSalary, String id, String login,
+                                                                         String name, Pageable pageable) {
+        return this.search(minSalary, maxSalary, id, login, name, null, pageable);
+    }
+
+    @Override
+    public List<Employee> findEmployeesBySalaryRangeAndLoginAndIDAmong(Double minSalary, Double maxSalary, String id, String login,
+                                                                       Collection<String> ids, Pageable pageable) {
+        return this.search(minSalary, maxSalary, id, login, null, ids, pageable);
+    }
+
+    @Override
+    public List<Employee> findEmployeesAfter(Double minSalary, Double maxSalary, String id, String login, String name,
+                                             String sort, Sort.Direction direction, KeysetCursor after, int limit) {
+        return this.seekPage(minSalary, maxSalary, id, login, name, null, sort, direction, after, limit);
+    }
+
+    @Override
+    public List<Employee> findEmployeesAfterAmong(Double minSalary, Double maxSalary, String id, String login, Collection<String> ids,
+                                                  String sort, Sort.Direction direction, KeysetCursor after, int limit) {
+        return this.seekPage(minSalary, maxSalary, id, login, null, ids, sort, direction, after, limit);
+    }
+
+    @Override
+    public Stream<Employee> streamEmployees(Double minSalary, Double maxSalary, String id, String login, String name,
+                                            Collection<String> ids, Sort sort, long offset, Integer limit) {
+        TypedQuery<Employee> query = this.searchQuery(minSalary, maxSalary, id, login, name, ids, sort)
+                .setFirstResult((int) offset);
+        if (limit != null){
+            query.setMaxResults(limit);
+        }
+        return query
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public long countEmployees(Double minSalary, Double maxSalary, String id, String login, String name, Collection<String> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Employee> employee = query.from(Employee.class);
+        query.select(cb.count(employee)).where(this.filters(cb, employee, minSalary, maxSalary, id, login, name, ids).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Employee> search(Double minSalary, Double maxSalary, String id, String login, String name,
+                                  Collection<String> ids, Pageable pageable) {
+        return this.searchQuery(minSalary, maxSalary, id, login, name, ids, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    private TypedQuery<Employee> searchQuery(Double minSalary, Double maxSalary, String id, String login, String name,
+                                             Collection<String> ids, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        Root<Employee> employee = query.from(Employee.class);
+        query.select(employee).where(this.filters(cb, employee, minSalary, maxSalary, id, login, name, ids).toArray(new Predicate[0]));
+
+        if (id != null || login != null){
+            // At most one row can match a unique key, so there is nothing to sort
+            return entityManager.createQuery(query);
+        }
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(sort, employee, cb));
+        if (sort.getOrderFor(ID) == null){
+            orders.add(cb.asc(employee.get(ID)));
+        }
+        return entityManager.createQuery(query.orderBy(orders));
+    }
+
+    private List<Employee> seekPage(Double minSalary, Double maxSalary, String id, String login, String name, Collection<String> ids,
+                                    String sort, Sort.Direction direction, KeysetCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        Root<Employee> employee = query.from(Employee.class);
+
+        List<Predicate> predicates = this.filters(cb, employee, minSalary, maxSalary, id, login, name, ids);
+        if (after != null){
+            predicates.add(this.seek(cb, employee, sort, direction, after));
+        }
+
+        query.select(employee).where(predicates.toArray(new Predicate[0]));
+        if (ID.equals(sort)){
+            query.orderBy(this.order(cb, employee.get(ID), direction));
+        } else {
+            query.orderBy(this.order(cb, employee.get(sort), direction), this.order(cb, employee.get(ID), direction));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private List<Predicate> filters(CriteriaBuilder cb, Root<Employee> employee, Double minSalary, Double maxSalary,
+                                    String id, String login, String name, Collection<String> ids){
+        List<Predicate> predicates = new ArrayList<>();
+        if (id != null){
+            predicates.add(cb.equal(employee.get(ID), id));
+        }
+        if (login != null){
+            predicates.add(cb.equal(employee.get("login"), login));
+        }
+        if (minSalary != null){
+            predicates.add(cb.greaterThanOrEqualTo(employee.get("salary"), minSalary));
+        }
+        if (maxSalary != null){
+            predicates.add(cb.lessThan(employee.get("salary"), maxSalary));
+        }
+        if (name != null && caseInsensitiveName){
+            predicates.add(cb.like(cb.lower(employee.get("name")), "%" + name.toLowerCase(Locale.ROOT) + "%"));
+        } else if (name != null){
+            predicates.add(cb.like(employee.get("name"), "%" + name + "%"));
+        }
+        if (ids != null){
+            predicates.add(employee.get(ID).in(ids));
+        }
+        return predicates;
+    }
+
+    /**
+     * (sort, id) > (lastValue, lastId) for ascending order, or &lt; for descending, spelled out so it can use a (sort, id) index.
+     */
+    @SuppressWarnings("unchecked")
+    private <Y extends Comparable<? super Y>> Predicate seek(CriteriaBuilder cb, Root<Employee> employee, String sort,
+                                                            Sort.Direction direction, KeysetCursor after){
+        Predicate afterId = this.beyond(cb, employee.get(ID), after.getId(), direction);
+        if (ID.equals(sort)){
+            return afterId;
+        }
+        Path<Y> column = employee.get(sort);
+        Y value = (Y) after.getValue();
+        return cb.or(this.beyond(cb, column, value, direction), cb.and(cb.equal(column, value), afterId));
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate beyond(CriteriaBuilder cb, Expression<Y> column, Y value, Sort.Direction direction){
+        return direction.isAscending() ? cb.greaterThan(column, value) : cb.lessThan(column, value);
+    }
+
+    private Order order(CriteriaBuilder cb, Expression<?> column, Sort.Direction direction){
+        return direction.isAscending() ? cb.asc(column) : cb.desc(column);
+    }
+}
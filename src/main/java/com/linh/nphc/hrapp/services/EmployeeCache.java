@@ -0,0 +1,62 @@
+package com.linh.nphc.hrapp.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Size-bounded read-through cache of employees by id, in front of GET /users/{id}.
+ * Every committed change evicts the ids it touched, so the next read goes back to the database.
+ * Hit, miss and eviction counts are published as the "employees" cache metrics.
+ */
+@Component
+public class EmployeeCache implements MeterBinder {
+
+    private final Cache<String, Employee> cache;
+
+    @Autowired
+    public EmployeeCache(@Value("${hrapp.cache.employees.maximum-size:10000}") long maximumSize){
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * @param loader called on a miss; a null result is returned but not cached
+     */
+    public Employee get(String id, Function<String, Employee> loader){
+        return cache.get(id, loader);
+    }
+
+    /**
+     * An eviction waits for a load of the same id in progress, so a value read before the commit cannot be cached after it.
+     */
+    @EventListener
+    @Order(0)
+    public void onEmployeesChanged(EmployeesChangedEvent event){
+        if (event.isFullReload()){
+            cache.invalidateAll();
+        } else {
+            cache.invalidateAll(event.getIds());
+        }
+    }
+
+    public CacheStats stats(){
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "employees");
+    }
+}
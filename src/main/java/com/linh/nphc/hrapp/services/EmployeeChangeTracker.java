@@ -0,0 +1,97 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the ids of the employees saved or deleted in the current transaction and publishes them as a single
+ * {@link EmployeesChangedEvent} after commit, or straight away when there is no transaction.
+ * Rolled back changes are never published. Only ids are kept, and no more than hrapp.changes.max-tracked-ids of
+ * them, so a large upload does not hold its rows until commit; past that the event asks for a full reload.
+ */
+@Component
+public class EmployeeChangeTracker {
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Value("${hrapp.changes.max-tracked-ids:10000}")
+    private int maxTrackedIds;
+
+    private final AtomicInteger changesInFlight = new AtomicInteger();
+
+    public void changed(String id){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()){
+            changesInFlight.incrementAndGet();
+            try {
+                Changes changes = new Changes();
+                changes.add(id, maxTrackedIds);
+                this.publish(changes);
+            } finally {
+                changesInFlight.decrementAndGet();
+            }
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null){
+            Changes transactionChanges = new Changes();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            changesInFlight.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(transactionChanges);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EmployeeChangeTracker.this);
+                    changesInFlight.decrementAndGet();
+                }
+            });
+            changes = transactionChanges;
+        }
+        changes.add(id, maxTrackedIds);
+    }
+
+    /**
+     * @return true while a transaction other than the current one has changed employees that the in-memory views
+     * may not reflect yet: from its first change until its listeners have run after commit, or until it rolled back
+     */
+    public boolean hasConcurrentChanges(){
+        boolean own = TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.hasResource(this);
+        return changesInFlight.get() > (own ? 1 : 0);
+    }
+
+    private void publish(Changes changes){
+        publisher.publishEvent(new EmployeesChangedEvent(changes.ids, changes.fullReload));
+    }
+
+    private static class Changes {
+
+        private Set<String> ids = new HashSet<>();
+        private boolean fullReload;
+
+        private void add(String id, int maxTrackedIds){
+            if (fullReload){
+                return;
+            }
+            ids.add(id);
+            if (ids.size() > maxTrackedIds){
+                ids = Collections.emptySet();
+                fullReload = true;
+            }
+        }
+    }
+}
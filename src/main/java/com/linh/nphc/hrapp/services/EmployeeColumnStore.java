@@ -0,0 +1,346 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Read model of the employee table for the /users salary range search, held as parallel primitive and String
+ * columns sorted by (salary, id), so a range is found with two binary searches and a page is read without
+ * the database. Results follow the order and paging of the JPA search: the sort column, then id ascending.
+ * Each committed change builds a new snapshot by merging the changed rows, re-read as committed, into the previous
+ * one, and searches read whichever snapshot is current without locking.
+ * A change too large to track by id marks the snapshot stale and has it rebuilt by the {@link IndexReloader}.
+ * Searches it does not cover (id or login filters, open salary bounds, LIKE wildcards in the name, other sorts)
+ * are left to the database, as is everything until the table has been loaded and while the snapshot is stale.
+ */
+@Component
+@Log4j2
+public class EmployeeColumnStore {
+
+    private static final String INDEX = "column store";
+    private static final String ID = "id";
+    private static final String LOGIN = "login";
+    private static final String NAME = "name";
+    private static final String SALARY = "salary";
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmployeeJdbcRepository employeeJdbcRepository;
+
+    @Autowired
+    private IndexReloader indexReloader;
+
+    @Value("${hrapp.search.column-store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hrapp.search.name.case-insensitive:false}")
+    private boolean caseInsensitive;
+
+    private final Object loadLock = new Object();
+    private volatile Columns columns;
+    private volatile boolean stale;
+    // Guarded by this: ids changed while a load reads the table, and whether a change could not be tracked by id
+    private Set<String> changedDuringLoad;
+    private boolean untrackedDuringLoad;
+
+    /**
+     * Reads the table into a new snapshot without blocking events or searches, which keep using the current one,
+     * then merges the rows changed in the meantime and swaps the new snapshot in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        if (!enabled){
+            return;
+        }
+        synchronized (loadLock){
+            synchronized (this){
+                changedDuringLoad = new HashSet<>();
+                untrackedDuringLoad = false;
+            }
+            List<Employee> employees = jdbcTemplate.query("select id, login, name, salary, start_date from employee", (resultSet, row) -> {
+                Number salary = (Number) resultSet.getObject(4);
+                Date startDate = resultSet.getDate(5);
+                return new Employee(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+                        salary == null ? null : salary.doubleValue(), startDate == null ? null : startDate.toLocalDate());
+            });
+            Columns loaded = Columns.EMPTY.merge(employees, Collections.emptySet());
+            synchronized (this){
+                if (!changedDuringLoad.isEmpty()){
+                    loaded = loaded.merge(employeeJdbcRepository.findCommitted(changedDuringLoad), changedDuringLoad);
+                }
+                columns = loaded;
+                stale = untrackedDuringLoad;
+                changedDuringLoad = null;
+            }
+            log.info("Loaded {} employees into the column store", loaded.size());
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onEmployeesChanged(EmployeesChangedEvent event){
+        if (!enabled){
+            return;
+        }
+        if (event.isFullReload()){
+            stale = true;
+            untrackedDuringLoad |= changedDuringLoad != null;
+            indexReloader.request(INDEX, this::load);
+            return;
+        }
+        if (changedDuringLoad != null){
+            changedDuringLoad.addAll(event.getIds());
+        }
+        if (columns == null || stale){
+            return;
+        }
+        // The changed ids are removed first and whichever still exist come back with their committed values
+        columns = columns.merge(employeeJdbcRepository.findCommitted(event.getIds()), event.getIds());
+    }
+
+    /**
+     * The page of employees the JPA search would return, or empty when the database has to answer.
+     */
+    public Optional<List<Employee>> findEmployees(Double minSalary, Double maxSalary, String id, String login, String name,
+                                                  Pageable pageable){
+        Columns snapshot = columns;
+        if (snapshot == null || stale || id != null || login != null || minSalary == null || maxSalary == null
+                || minSalary.isNaN() || maxSalary.isNaN() || !isLiteral(name)){
+            return Optional.empty();
+        }
+        Iterator<Sort.Order> orders = pageable.getSort().iterator();
+        Sort.Order order = orders.hasNext() ? orders.next() : Sort.Order.asc(ID);
+        if (orders.hasNext() || order.isIgnoreCase() || !Arrays.asList(ID, LOGIN, NAME, SALARY).contains(order.getProperty())){
+            return Optional.empty();
+        }
+
+        int from = snapshot.lowerBound(minSalary);
+        int to = Math.max(from, snapshot.lowerBound(maxSalary));
+        String fragment = name == null || !caseInsensitive ? name : name.toLowerCase(Locale.ROOT);
+        Page page = new Page(snapshot, fragment, pageable.getOffset(), pageable.getPageSize());
+        if (SALARY.equals(order.getProperty()) && order.isAscending()){
+            for (int row = from; row < to && !page.isFull(); row++){
+                page.offer(row);
+            }
+        } else if (SALARY.equals(order.getProperty())){
+            // Highest salary first, but ids still ascending among equal salaries
+            int end = to;
+            while (end > from && !page.isFull()){
+                int start = end - 1;
+                while (start > from && Double.compare(snapshot.salaries[start - 1], snapshot.salaries[end - 1]) == 0){
+                    start--;
+                }
+                for (int row = start; row < end && !page.isFull(); row++){
+                    page.offer(row);
+                }
+                end = start;
+            }
+        } else {
+            for (Integer row : this.sortedMatches(snapshot, fragment, from, to, order, pageable.getOffset() + pageable.getPageSize())){
+                page.offer(row);
+            }
+        }
+        return Optional.of(page.employees);
+    }
+
+    /**
+     * The first limit matching rows of the range in the order of a text column, kept in a bounded heap
+     * instead of sorting the whole range.
+     */
+    private List<Integer> sortedMatches(Columns snapshot, String fragment, int from, int to, Sort.Order order, long limit){
+        String[] keys = ID.equals(order.getProperty()) ? snapshot.ids : LOGIN.equals(order.getProperty()) ? snapshot.logins : snapshot.names;
+        Comparator<Integer> comparator = Comparator.comparing(row -> keys[row], Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+        if (order.isDescending()){
+            comparator = comparator.reversed();
+        }
+        if (keys != snapshot.ids){
+            comparator = comparator.thenComparing(row -> snapshot.ids[row]);
+        }
+        PriorityQueue<Integer> heap = new PriorityQueue<>(comparator.reversed());
+        for (int row = from; row < to; row++){
+            if (snapshot.matches(row, fragment, caseInsensitive)){
+                heap.add(row);
+                if (heap.size() > limit){
+                    heap.poll();
+                }
+            }
+        }
+        List<Integer> rows = new ArrayList<>(heap);
+        rows.sort(comparator);
+        return rows;
+    }
+
+    /**
+     * Names are matched with contains, so fragments the database would read as LIKE patterns are left to it.
+     */
+    private static boolean isLiteral(String name){
+        return name == null || (name.indexOf('%') < 0 && name.indexOf('_') < 0 && name.indexOf('\\') < 0);
+    }
+
+    private class Page {
+
+        private final Columns snapshot;
+        private final String fragment;
+        private final int limit;
+        private final List<Employee> employees = new ArrayList<>();
+        private long skip;
+
+        private Page(Columns snapshot, String fragment, long offset, int limit){
+            this.snapshot = snapshot;
+            this.fragment = fragment;
+            this.skip = offset;
+            this.limit = limit;
+        }
+
+        private boolean isFull(){
+            return employees.size() >= limit;
+        }
+
+        private void offer(int row){
+            if (isFull() || !snapshot.matches(row, fragment, caseInsensitive)){
+                return;
+            }
+            if (skip > 0){
+                skip--;
+                return;
+            }
+            employees.add(snapshot.employee(row));
+        }
+    }
+
+    /**
+     * One immutable snapshot of the table, rows sorted by salary and then id. Employees without a salary are left
+     * out, as no salary range matches them.
+     */
+    private static final class Columns {
+
+        private static final Columns EMPTY = new Columns(0);
+
+        private final double[] salaries;
+        private final String[] ids;
+        private final String[] logins;
+        private final String[] names;
+        private final int[] startDays;
+
+        private Columns(int size){
+            salaries = new double[size];
+            ids = new String[size];
+            logins = new String[size];
+            names = new String[size];
+            startDays = new int[size];
+        }
+
+        private int size(){
+            return ids.length;
+        }
+
+        /**
+         * @return the first row whose salary is not below the value
+         */
+        private int lowerBound(double salary){
+            int low = 0;
+            int high = salaries.length;
+            while (low < high){
+                int middle = (low + high) >>> 1;
+                if (Double.compare(salaries[middle], salary) < 0){
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private boolean matches(int row, String fragment, boolean caseInsensitive){
+            if (fragment == null){
+                return true;
+            }
+            String name = names[row];
+            return name != null && (caseInsensitive ? name.toLowerCase(Locale.ROOT) : name).contains(fragment);
+        }
+
+        private Employee employee(int row){
+            return new Employee(ids[row], logins[row], names[row], salaries[row],
+                    startDays[row] == NO_DATE ? null : LocalDate.ofEpochDay(startDays[row]));
+        }
+
+        /**
+         * Copies the rows that were not removed and the saved ones, in order, into a new snapshot.
+         */
+        private Columns merge(Collection<Employee> saved, Set<String> removedIds){
+            Map<String, Employee> latest = new HashMap<>();
+            saved.forEach(employee -> latest.put(employee.getId(), employee));
+            List<Employee> added = new ArrayList<>(latest.size());
+            for (Employee employee : latest.values()){
+                if (employee.getSalary() != null){
+                    added.add(employee);
+                }
+            }
+            added.sort(Comparator.comparing(Employee::getSalary, Double::compare).thenComparing(Employee::getId));
+
+            int kept = 0;
+            boolean[] removed = new boolean[size()];
+            for (int row = 0; row < size(); row++){
+                removed[row] = latest.containsKey(ids[row]) || removedIds.contains(ids[row]);
+                if (!removed[row]){
+                    kept++;
+                }
+            }
+
+            Columns merged = new Columns(kept + added.size());
+            int row = 0;
+            int next = 0;
+            for (int target = 0; target < merged.size(); target++){
+                while (row < size() && removed[row]){
+                    row++;
+                }
+                if (row < size() && (next == added.size() || this.compare(row, added.get(next)) < 0)){
+                    merged.copy(target, this, row++);
+                } else {
+                    merged.set(target, added.get(next++));
+                }
+            }
+            return merged;
+        }
+
+        private int compare(int row, Employee employee){
+            int bySalary = Double.compare(salaries[row], employee.getSalary());
+            return bySalary != 0 ? bySalary : ids[row].compareTo(employee.getId());
+        }
+
+        private void copy(int target, Columns source, int row){
+            salaries[target] = source.salaries[row];
+            ids[target] = source.ids[row];
+            logins[target] = source.logins[row];
+            names[target] = source.names[row];
+            startDays[target] = source.startDays[row];
+        }
+
+        private void set(int target, Employee employee){
+            salaries[target] = employee.getSalary();
+            ids[target] = employee.getId();
+            logins[target] = employee.getLogin();
+            names[target] = employee.getName();
+            startDays[target] = employee.getStartDate() == null ? NO_DATE : (int) employee.getStartDate().toEpochDay();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.linh.nphc.hrapp.models.Employee;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The id,login,name,salary,startDate fields of one row read by {@link EmployeeCsvTokenizer}, already unquoted and
+ * unescaped, kept as UTF-8 bytes until {@link #toEmployee} parses them.
+ * Follows the conversion rules of the CSVReader path: blank text and salary fields are null, the start date is
+ * checked before the salary and values that do not parse are reported with the same messages. Salary and start
+ * date are parsed from the bytes without becoming Strings.
+ */
+public class EmployeeCsvRow {
+
+    static final int COLUMNS = 5;
+    private static final int COLUMN_ID = 0;
+    private static final int COLUMN_LOGIN = 1;
+    private static final int COLUMN_NAME = 2;
+    private static final int COLUMN_SALARY = 3;
+    private static final int COLUMN_START_DATE = 4;
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++){
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final byte[] bytes;
+    private final int[] starts = new int[COLUMNS];
+    private final int[] ends = new int[COLUMNS];
+
+    /**
+     * Copies the fields out of the tokenizer's buffer, which is reused for the next row.
+     */
+    EmployeeCsvRow(byte[] buffer, int[] starts, int[] ends){
+        int offset = starts[0];
+        this.bytes = Arrays.copyOfRange(buffer, offset, ends[COLUMNS - 1]);
+        for (int column = 0; column < COLUMNS; column++){
+            this.starts[column] = starts[column] - offset;
+            this.ends[column] = ends[column] - offset;
+        }
+    }
+
+    /**
+     * @throws UnableToReadFileException when the salary is not a number or the start date matches no format;
+     * other fields are left for validation
+     */
+    public Employee toEmployee(StartDateParser startDateParser){
+        // Same order as the CSVReader path, so a row with both a bad date and a bad salary reports the date
+        LocalDate startDate = this.startDate(startDateParser);
+        Double salary = this.salary();
+        return new Employee(this.text(COLUMN_ID), this.text(COLUMN_LOGIN), this.text(COLUMN_NAME), salary, startDate);
+    }
+
+    private String text(int column){
+        return this.isBlank(column) ? null : this.decode(column);
+    }
+
+    /**
+     * Checks the bytes like StringUtils.isBlank, decoding them only when they are not all ASCII.
+     */
+    private boolean isBlank(int column){
+        for (int i = starts[column]; i < ends[column]; i++){
+            if (bytes[i] < 0){
+                return StringUtils.isBlank(this.decode(column));
+            }
+            if (!isWhitespace(bytes[i])){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Double salary(){
+        int start = starts[COLUMN_SALARY];
+        int end = ends[COLUMN_SALARY];
+        if (this.isBlank(COLUMN_SALARY)){
+            return null;
+        }
+        // Double.valueOf ignores surrounding control characters and spaces
+        while (start < end && bytes[start] >= 0 && bytes[start] <= ' '){
+            start++;
+        }
+        while (end > start && bytes[end - 1] >= 0 && bytes[end - 1] <= ' '){
+            end--;
+        }
+        double value = this.parseDecimal(start, end);
+        if (!Double.isNaN(value)){
+            return value;
+        }
+        String salary = this.decode(COLUMN_SALARY);
+        try {
+            return Double.valueOf(salary);
+        } catch (NumberFormatException ex){
+            throw new UnableToReadFileException(String.format("Unable to parse number %s", salary));
+        }
+    }
+
+    /**
+     * Parses an optionally signed plain decimal whose digits fit in a double's mantissa, dividing by an exact power
+     * of ten, which gives the same correctly rounded value as Double.valueOf.
+     *
+     * @return the value, or NaN when the number is not of that form and has to go through Double.valueOf
+     */
+    private double parseDecimal(int start, int end){
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')){
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < end; i++){
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9'){
+                digits++;
+                if (mantissa > 0 || b != '0'){
+                    significantDigits++;
+                }
+                if (significantDigits > 18){
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction){
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !fraction){
+                fraction = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0 || mantissa > MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length){
+            return Double.NaN;
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private LocalDate startDate(StartDateParser startDateParser){
+        int start = starts[COLUMN_START_DATE];
+        int end = ends[COLUMN_START_DATE];
+        if (start == end){
+            return null;
+        }
+        for (int i = start; i < end; i++){
+            if (bytes[i] < 0){
+                return startDateParser.parse(this.decode(COLUMN_START_DATE));
+            }
+        }
+        return startDateParser.parse(new AsciiChars(bytes, start, end));
+    }
+
+    private String decode(int column){
+        return new String(bytes, starts[column], ends[column] - starts[column], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The ASCII characters Character.isWhitespace accepts, which is what StringUtils.isBlank checks.
+     */
+    private static boolean isWhitespace(byte b){
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+
+    /**
+     * View of ASCII bytes as characters, so dates are parsed without copying them into a String.
+     */
+    private static class AsciiChars implements CharSequence {
+
+        private final byte[] bytes;
+        private final int start;
+        private final int length;
+
+        private AsciiChars(byte[] bytes, int start, int end){
+            this.bytes = bytes;
+            this.start = start;
+            this.length = end - start;
+        }
+
+        @Override
+        public int length(){
+            return length;
+        }
+
+        @Override
+        public char charAt(int index){
+            return (char) bytes[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to){
+            return this.toString().subSequence(from, to);
+        }
+
+        @Override
+        public String toString(){
+            return new String(bytes, start, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
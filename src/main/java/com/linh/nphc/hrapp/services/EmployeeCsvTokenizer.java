@@ -0,0 +1,243 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads upload rows in the id,login,name,salary,startDate format into {@link EmployeeCsvRow}s.
+ * Rows are tokenized in place in a reusable UTF-8 byte buffer and handed over as one copy of their bytes with the
+ * field bounds, so no row array or per-field String is created; turning them into employees is left to
+ * {@link EmployeeCsvRow#toEmployee}, which the upload pipeline runs on its workers.
+ * Follows the quoting rules of the CSVReader path: the header line is skipped, fields may be quoted with doubled
+ * quotes inside, backslashes are dropped unless they escape a quote or another backslash as CSVReader's default
+ * escape character does (so C:\dir is read as C:dir), and a quoted field left open at the end of the file is an error.
+ * Rows whose id starts with "#" are returned like any other and skipped by the import.
+ */
+public class EmployeeCsvTokenizer implements RowReader<EmployeeCsvRow>, Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final InputStream in;
+    private final int[] starts = new int[EmployeeCsvRow.COLUMNS];
+    private final int[] ends = new int[EmployeeCsvRow.COLUMNS];
+    private final boolean[] quoted = new boolean[EmployeeCsvRow.COLUMNS];
+    private final boolean[] escaped = new boolean[EmployeeCsvRow.COLUMNS];
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private int columns;
+    private boolean eof;
+    private boolean headerSkipped;
+
+    public EmployeeCsvTokenizer(InputStream in){
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    EmployeeCsvTokenizer(InputStream in, int bufferSize){
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @return the next row, or null at the end of the file
+     * @throws UnableToReadFileException when the row has too few columns or a quoted field is never closed
+     */
+    @Override
+    public EmployeeCsvRow readNext() throws IOException {
+        if (!headerSkipped){
+            headerSkipped = true;
+            if (!this.nextRow()){
+                return null;
+            }
+        }
+        if (!this.nextRow()){
+            return null;
+        }
+        if (columns < EmployeeCsvRow.COLUMNS){
+            throw new UnableToReadFileException(String.format("Row has %d columns instead of %d", columns, EmployeeCsvRow.COLUMNS));
+        }
+        for (int column = 0; column < EmployeeCsvRow.COLUMNS; column++){
+            if (quoted[column] || escaped[column]){
+                this.unescape(column);
+            }
+        }
+        return new EmployeeCsvRow(buffer, starts, ends);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Finds the fields of the next row, reading more of the input until the whole row is in the buffer.
+     */
+    private boolean nextRow() throws IOException {
+        while (true){
+            int end = position < limit ? this.scan(false) : -1;
+            if (end >= 0){
+                position = end;
+                return true;
+            }
+            if (!this.fill()){
+                if (position == limit){
+                    return false;
+                }
+                position = this.scan(true);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, doubling it when one row fills it, and reads more input.
+     *
+     * @return false once the input is exhausted
+     */
+    private boolean fill() throws IOException {
+        if (eof){
+            return false;
+        }
+        if (position > 0){
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length){
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0){
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Records the bounds of the fields of the row at the current position without changing the buffer, so that
+     * a row cut off by the end of the buffer can be scanned again after reading more.
+     *
+     * @return the position after the row's line break, or -1 when the row runs past the data read so far
+     */
+    private int scan(boolean atEof){
+        columns = 0;
+        int i = position;
+        while (true){
+            int start = i;
+            boolean isQuoted = i < limit && buffer[i] == QUOTE;
+            boolean isEscaped = false;
+            if (isQuoted){
+                i++;
+                while (true){
+                    if (i >= limit){
+                        if (!atEof){
+                            return -1;
+                        }
+                        throw new UnableToReadFileException("Unterminated quoted field");
+                    }
+                    byte b = buffer[i++];
+                    if (b == ESCAPE){
+                        isEscaped = true;
+                        if (i >= limit && !atEof){
+                            return -1;
+                        }
+                        if (i < limit && (buffer[i] == QUOTE || buffer[i] == ESCAPE)){
+                            i++;
+                        }
+                    } else if (b == QUOTE){
+                        if (i >= limit && !atEof){
+                            return -1;
+                        }
+                        if (i < limit && buffer[i] == QUOTE){
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+            }
+            // Characters between the closing quote and the separator are kept, as CSVReader does
+            while (i < limit && !isDelimiter(buffer[i])){
+                if (buffer[i++] == ESCAPE){
+                    isEscaped = true;
+                }
+            }
+            if (columns < EmployeeCsvRow.COLUMNS){
+                starts[columns] = start;
+                ends[columns] = i;
+                quoted[columns] = isQuoted;
+                escaped[columns] = isEscaped;
+            }
+            columns++;
+
+            if (i >= limit){
+                return atEof ? i : -1;
+            }
+            byte delimiter = buffer[i++];
+            if (delimiter == SEPARATOR){
+                continue;
+            }
+            if (delimiter == CR){
+                if (i >= limit && !atEof){
+                    return -1;
+                }
+                if (i < limit && buffer[i] == LF){
+                    i++;
+                }
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Drops the enclosing quotes of a field, collapses doubled quotes and resolves backslashes, writing over the
+     * field itself. As in CSVReader, a backslash keeps the quote or backslash after it once the field has started
+     * and is dropped in every other case, and a closing quote that more characters follow is kept.
+     */
+    private void unescape(int column){
+        int write = starts[column];
+        int end = ends[column];
+        boolean inQuotes = quoted[column];
+        boolean inField = inQuotes;
+        int read = inQuotes ? write + 1 : write;
+        while (read < end){
+            byte b = buffer[read++];
+            if (b == ESCAPE){
+                if (inField && read < end && (buffer[read] == QUOTE || buffer[read] == ESCAPE)){
+                    buffer[write++] = buffer[read++];
+                }
+                continue;
+            }
+            inField = true;
+            if (inQuotes && b == QUOTE){
+                if (read < end && buffer[read] == QUOTE){
+                    read++;
+                } else {
+                    inQuotes = false;
+                    if (read == end){
+                        continue;
+                    }
+                }
+            }
+            buffer[write++] = b;
+        }
+        ends[column] = write;
+    }
+
+    private static boolean isDelimiter(byte b){
+        return b == SEPARATOR || b == LF || b == CR;
+    }
+}
@@ -0,0 +1,25 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Reports every change made to employees through JPA, whichever repository or service made it,
+ * to the {@link EmployeeChangeTracker}. Instantiated by Hibernate through Spring's bean container.
+ */
+public class EmployeeEntityListener {
+
+    @Autowired
+    private EmployeeChangeTracker employeeChangeTracker;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Employee employee){
+        employeeChangeTracker.changed(employee.getId());
+    }
+}
@@ -0,0 +1,146 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import lombok.extern.log4j.Log4j2;
+import net.openhft.hashing.LongHashFunction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 64-bit xxHash of each stored employee's login, name, salary and start date, so an upload can tell in memory
+ * which rows would not change anything and leave them out of the database writes.
+ * Loaded once the application is ready and kept in step with committed changes through {@link EmployeesChangedEvent},
+ * re-reading the changed rows so that events applied out of order still end on the committed values.
+ * A change too large to track by id marks the hashes stale and has them rebuilt by the {@link IndexReloader};
+ * until the new hashes are swapped in, no row is reported unchanged.
+ */
+@Component
+@Log4j2
+public class EmployeeHashStore {
+
+    private static final String INDEX = "employee hashes";
+    private static final LongHashFunction XX = LongHashFunction.xx();
+    private static final char SEPARATOR = '\u0000';
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmployeeJdbcRepository employeeJdbcRepository;
+
+    @Autowired
+    private EmployeeChangeTracker employeeChangeTracker;
+
+    @Autowired
+    private IndexReloader indexReloader;
+
+    @Value("${hrapp.upload.delta.enabled:true}")
+    private boolean enabled;
+
+    private final Object loadLock = new Object();
+    private volatile Map<String, Long> hashes = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile boolean stale;
+    // Guarded by this: ids changed while a load reads the table, and whether a change could not be tracked by id
+    private Set<String> changedDuringLoad;
+    private boolean untrackedDuringLoad;
+
+    /**
+     * Reads the table into new hashes without blocking events, which keep updating the current ones, then applies
+     * the rows changed in the meantime and swaps the new hashes in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        if (!enabled){
+            return;
+        }
+        synchronized (loadLock){
+            synchronized (this){
+                changedDuringLoad = new HashSet<>();
+                untrackedDuringLoad = false;
+            }
+            Map<String, Long> loaded = new ConcurrentHashMap<>();
+            jdbcTemplate.query("select id, login, name, salary, start_date from employee", resultSet -> {
+                Number salary = (Number) resultSet.getObject(4);
+                Date startDate = resultSet.getDate(5);
+                loaded.put(resultSet.getString(1), hash(resultSet.getString(2), resultSet.getString(3),
+                        salary == null ? null : salary.doubleValue(), startDate == null ? null : startDate.toLocalDate().toString()));
+            });
+            synchronized (this){
+                this.apply(loaded, changedDuringLoad);
+                hashes = loaded;
+                stale = untrackedDuringLoad;
+                changedDuringLoad = null;
+                ready = true;
+            }
+            log.info("Hashed {} employees", loaded.size());
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onEmployeesChanged(EmployeesChangedEvent event){
+        if (!enabled){
+            return;
+        }
+        if (event.isFullReload()){
+            stale = true;
+            untrackedDuringLoad |= changedDuringLoad != null;
+            indexReloader.request(INDEX, this::load);
+            return;
+        }
+        if (changedDuringLoad != null){
+            changedDuringLoad.addAll(event.getIds());
+        }
+        // Stale hashes are replaced by the pending load anyway. Reading and applying under the same lock means
+        // whichever event is applied last also read last
+        if (!stale){
+            this.apply(hashes, event.getIds());
+        }
+    }
+
+    private void apply(Map<String, Long> target, Set<String> ids){
+        if (ids.isEmpty()){
+            return;
+        }
+        List<Employee> committed = employeeJdbcRepository.findCommitted(ids);
+        ids.forEach(target::remove);
+        committed.forEach(employee -> target.put(employee.getId(), hash(employee)));
+    }
+
+    /**
+     * @return true when the stored employee with this id already holds exactly these values. Always false while
+     * another transaction has changes the hashes may not reflect yet, as the stored row could be about to change.
+     */
+    public boolean isUnchanged(Employee employee){
+        if (!ready || stale || employeeChangeTracker.hasConcurrentChanges()){
+            return false;
+        }
+        Long stored = hashes.get(employee.getId());
+        return stored != null && stored == hash(employee);
+    }
+
+    static long hash(Employee employee){
+        return hash(employee.getLogin(), employee.getName(), employee.getSalary(),
+                employee.getStartDate() == null ? null : employee.getStartDate().toString());
+    }
+
+    private static long hash(String login, String name, Double salary, String startDate){
+        return XX.hashChars(login + SEPARATOR + name + SEPARATOR + salary + SEPARATOR + startDate);
+    }
+}
@@ -0,0 +1,153 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.UploadProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the upload stages and the /users search, published through the actuator metrics and
+ * prometheus endpoints:
+ * hrapp.upload.stage (tag stage), hrapp.upload.rows (tag result), hrapp.upload.active and hrapp.upload.rate
+ * for imports in progress, and hrapp.search (tag filters) with a percentile histogram per filter combination.
+ * Meters are looked up once here so recording costs a clock read and an add; with hrapp.metrics.enabled=false
+ * nothing is read or recorded at all.
+ */
+@Component
+public class EmployeeMetrics {
+
+    public enum Stage {
+        /** Reading rows off the file; with the fast tokenizer this includes turning them into employees */
+        PARSE,
+        CONVERT,
+        VALIDATE,
+        WRITE
+    }
+
+    private static final int ID_FILTER = 1;
+    private static final int LOGIN_FILTER = 2;
+    private static final int NAME_FILTER = 4;
+
+    private final boolean enabled;
+    private final Timer[] stageTimers = new Timer[Stage.values().length];
+    private final Timer[] searchTimers = new Timer[8];
+    private final Counter rowsWritten;
+    private final Counter rowsSkipped;
+    private final Map<UploadProgress, Long> activeImports = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EmployeeMetrics(MeterRegistry registry, @Value("${hrapp.metrics.enabled:true}") boolean enabled){
+        this.enabled = enabled;
+        for (Stage stage : Stage.values()){
+            stageTimers[stage.ordinal()] = Timer.builder("hrapp.upload.stage")
+                    .description("Time spent in each stage of an upload")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        for (int filters = 0; filters < searchTimers.length; filters++){
+            searchTimers[filters] = Timer.builder("hrapp.search")
+                    .description("Latency of /users searches by the filters given besides the salary range")
+                    .tag("filters", filterTag(filters))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        rowsWritten = Counter.builder("hrapp.upload.rows").tag("result", "written").register(registry);
+        rowsSkipped = Counter.builder("hrapp.upload.rows").tag("result", "skipped").register(registry);
+        Gauge.builder("hrapp.upload.active", activeImports, Map::size)
+                .description("Imports in progress")
+                .register(registry);
+        Gauge.builder("hrapp.upload.rate", this, EmployeeMetrics::rowsPerSecond)
+                .description("Rows parsed per second by the imports in progress")
+                // Registries append the base unit to the name, so a rate keeps the counted unit and says per second above
+                .baseUnit("rows")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * @return the time to pass back to {@link #stage} or {@link #search} once the measured work is done
+     */
+    public long start(){
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start and returns the current time, so consecutive stages can share one clock read.
+     */
+    public long stage(Stage stage, long start){
+        if (!enabled){
+            return 0;
+        }
+        long now = System.nanoTime();
+        stageTimers[stage.ordinal()].record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void search(String id, String login, String name, long start){
+        if (!enabled){
+            return;
+        }
+        int filters = (id == null ? 0 : ID_FILTER) | (login == null ? 0 : LOGIN_FILTER) | (name == null ? 0 : NAME_FILTER);
+        searchTimers[filters].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void rowsWritten(int rows){
+        if (enabled){
+            rowsWritten.increment(rows);
+        }
+    }
+
+    public void rowsSkipped(int rows){
+        if (enabled){
+            rowsSkipped.increment(rows);
+        }
+    }
+
+    public void importStarted(UploadProgress progress){
+        if (enabled){
+            activeImports.put(progress, System.nanoTime());
+        }
+    }
+
+    public void importFinished(UploadProgress progress){
+        activeImports.remove(progress);
+    }
+
+    private double rowsPerSecond(){
+        long now = System.nanoTime();
+        double rate = 0;
+        for (Map.Entry<UploadProgress, Long> active : activeImports.entrySet()){
+            long elapsed = now - active.getValue();
+            if (elapsed > 0){
+                rate += active.getKey().getRowsParsed() * 1e9 / elapsed;
+            }
+        }
+        return rate;
+    }
+
+    private static String filterTag(int filters){
+        if (filters == 0){
+            return "none";
+        }
+        StringBuilder tag = new StringBuilder();
+        if ((filters & ID_FILTER) != 0){
+            tag.append("id");
+        }
+        if ((filters & LOGIN_FILTER) != 0){
+            tag.append(tag.length() == 0 ? "" : "+").append("login");
+        }
+        if ((filters & NAME_FILTER) != 0){
+            tag.append(tag.length() == 0 ? "" : "+").append("name");
+        }
+        return tag.toString();
+    }
+}
@@ -0,0 +1,216 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over employee names, so a name substring search does not need a
+ * "like '%name%'" scan of the whole table. Loaded from the database once the application is ready
+ * and kept in step with committed changes through {@link EmployeesChangedEvent}, re-reading the changed rows
+ * so that events applied out of order still end on the committed names.
+ * A change too large to track by id marks the index stale and has it rebuilt by the {@link IndexReloader};
+ * until the new index is swapped in, searches are left to the database.
+ */
+@Component
+@Log4j2
+public class EmployeeNameIndex {
+
+    private static final String INDEX = "name index";
+    private static final int GRAM = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmployeeJdbcRepository employeeJdbcRepository;
+
+    @Autowired
+    private IndexReloader indexReloader;
+
+    @Value("${hrapp.search.name-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hrapp.search.name.case-insensitive:false}")
+    private boolean caseInsensitive;
+
+    @Value("${hrapp.search.name-index.max-candidates:1000}")
+    private int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadLock = new Object();
+    private Index index = new Index();
+    private volatile boolean ready;
+    private volatile boolean stale;
+    // Guarded by this: ids changed while a load reads the table, and whether a change could not be tracked by id
+    private Set<String> changedDuringLoad;
+    private boolean untrackedDuringLoad;
+
+    /**
+     * Reads the table into a new index without blocking events or searches, which keep using the current one, then
+     * applies the rows changed in the meantime and swaps the new index in. Change events are serialised on the index
+     * itself and only take the write lock once their rows have been read, so searches do not wait for that query.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        if (!enabled){
+            return;
+        }
+        synchronized (loadLock){
+            synchronized (this){
+                changedDuringLoad = new HashSet<>();
+                untrackedDuringLoad = false;
+            }
+            Index loaded = new Index();
+            jdbcTemplate.query("select id, name from employee", resultSet -> {
+                loaded.add(resultSet.getString(1), resultSet.getString(2));
+            });
+            synchronized (this){
+                if (!changedDuringLoad.isEmpty()){
+                    loaded.apply(changedDuringLoad, employeeJdbcRepository.findCommitted(changedDuringLoad));
+                }
+                lock.writeLock().lock();
+                try {
+                    index = loaded;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                stale = untrackedDuringLoad;
+                changedDuringLoad = null;
+                ready = true;
+            }
+            log.info("Indexed names of {} employees", loaded.names.size());
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onEmployeesChanged(EmployeesChangedEvent event){
+        if (!enabled){
+            return;
+        }
+        if (event.isFullReload()){
+            stale = true;
+            untrackedDuringLoad |= changedDuringLoad != null;
+            indexReloader.request(INDEX, this::load);
+            return;
+        }
+        if (changedDuringLoad != null){
+            changedDuringLoad.addAll(event.getIds());
+        }
+        if (stale){
+            return;
+        }
+        List<Employee> committed = employeeJdbcRepository.findCommitted(event.getIds());
+        lock.writeLock().lock();
+        try {
+            index.apply(event.getIds(), committed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the employees whose name contains the fragment, or empty when the database should answer instead:
+     * the index is disabled, not loaded yet or stale, the fragment holds a LIKE wildcard or escape (%, _ or \) that
+     * the database would interpret, or more than max-candidates employees match.
+     */
+    public Optional<Set<String>> findIdsByName(String fragment){
+        if (!ready || stale || fragment.indexOf('%') >= 0 || fragment.indexOf('_') >= 0 || fragment.indexOf('\\') >= 0){
+            return Optional.empty();
+        }
+        String key = normalise(fragment);
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates = index.names.keySet();
+            for (int i = 0; i + GRAM <= key.length(); i++){
+                Set<String> posting = index.postings.get(key.substring(i, i + GRAM));
+                if (posting == null){
+                    return Optional.of(Collections.emptySet());
+                }
+                if (posting.size() < candidates.size()){
+                    candidates = posting;
+                }
+            }
+            Set<String> matches = new HashSet<>();
+            for (String id : candidates){
+                if (this.matches(index.names.get(id), fragment, key)){
+                    matches.add(id);
+                    if (matches.size() > maxCandidates){
+                        return Optional.empty();
+                    }
+                }
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean matches(String name, String fragment, String key){
+        return caseInsensitive ? normalise(name).contains(key) : name.contains(fragment);
+    }
+
+    /**
+     * Trigrams are always built from the lower-cased name, so the same index serves both matching modes;
+     * case-sensitive searches are then confirmed against the stored name.
+     */
+    private static String normalise(String value){
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Index {
+
+        private final Map<String, String> names = new HashMap<>();
+        private final Map<String, Set<String>> postings = new HashMap<>();
+
+        /**
+         * Removes the changed ids and adds back whichever still exist with their committed names.
+         */
+        private void apply(Set<String> ids, List<Employee> committed){
+            ids.forEach(this::remove);
+            for (Employee employee : committed){
+                this.add(employee.getId(), employee.getName());
+            }
+        }
+
+        private void add(String id, String name){
+            if (name == null){
+                return;
+            }
+            names.put(id, name);
+            String key = normalise(name);
+            for (int i = 0; i + GRAM <= key.length(); i++){
+                postings.computeIfAbsent(key.substring(i, i + GRAM), gram -> new HashSet<>()).add(id);
+            }
+        }
+
+        private void remove(String id){
+            String name = names.remove(id);
+            if (name == null){
+                return;
+            }
+            String key = normalise(name);
+            for (int i = 0; i + GRAM <= key.length(); i++){
+                String gram = key.substring(i, i + GRAM);
+                Set<String> posting = postings.get(gram);
+                if (posting != null && posting.remove(id) && posting.isEmpty()){
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.linh.nphc.hrapp.models.Employee;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Turns the fields of an upload row, already split by CSVReader, the import reader or the tokenizer, into an employee.
+ * Blank text and salary fields become null and are left for validation; the start date is parsed before the salary.
+ */
+@Component
+public class EmployeeRowConverter {
+
+    private final static int COLUMN_ID = 0;
+    private final static int COLUMN_LOGIN = 1;
+    private final static int COLUMN_NAME = 2;
+    private final static int COLUMN_SALARY = 3;
+    private final static int COLUMN_START_DATE = 4;
+
+    private final StartDateParser startDateParser;
+
+    @Autowired
+    public EmployeeRowConverter(StartDateParser startDateParser){
+        this.startDateParser = startDateParser;
+    }
+
+    /**
+     * @throws UnableToReadFileException when the salary is not a number or the start date matches no format
+     */
+    public Employee convert(String[] row){
+        try {
+            String id = StringUtils.isBlank(row[COLUMN_ID]) ? null : row[COLUMN_ID];
+            String login = StringUtils.isBlank(row[COLUMN_LOGIN]) ? null : row[COLUMN_LOGIN];
+            String name = StringUtils.isBlank(row[COLUMN_NAME]) ? null : row[COLUMN_NAME];
+            LocalDate startDate = startDateParser.parse(row[COLUMN_START_DATE]);
+            Double salary = StringUtils.isBlank(row[COLUMN_SALARY]) ? null : Double.valueOf(row[COLUMN_SALARY]);
+
+            return new Employee(id, login, name, salary, startDate);
+        } catch (NumberFormatException ex){
+            throw new UnableToReadFileException(String.format("Unable to parse number %s", row[COLUMN_SALARY]));
+        }
+    }
+
+    /**
+     * @throws UnableToReadFileException when the salary is not a number or the start date matches no format
+     */
+    public Employee convert(EmployeeCsvRow row){
+        return row.toEmployee(startDateParser);
+    }
+}
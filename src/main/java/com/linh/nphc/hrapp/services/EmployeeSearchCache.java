@@ -0,0 +1,99 @@
+package com.linh.nphc.hrapp.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches /users search results by their parameters and the data version they were read at.
+ * Every committed change bumps the version, so a result computed before a change is never returned after it,
+ * even if its search was still running when the change committed. Bounded by the total number of employees held.
+ */
+@Component
+public class EmployeeSearchCache implements MeterBinder {
+
+    private final Cache<SearchKey, List<Employee>> cache;
+    private final boolean enabled;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param maximumRows 0 turns the cache off
+     */
+    @Autowired
+    public EmployeeSearchCache(@Value("${hrapp.cache.searches.maximum-rows:100000}") long maximumRows){
+        this.enabled = maximumRows > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumRows)
+                .<SearchKey, List<Employee>>weigher((key, employees) -> employees.size() + 1)
+                .recordStats()
+                .build();
+    }
+
+    public List<Employee> get(Double minSalary, Double maxSalary, String id, String login, String name, Pageable pageable,
+                              Supplier<List<Employee>> search){
+        if (!enabled){
+            return search.get();
+        }
+        SearchKey key = new SearchKey(version.get(), minSalary, maxSalary, id, login, name,
+                pageable.getOffset(), pageable.getPageSize(), pageable.getSort());
+        return cache.get(key, k -> search.get());
+    }
+
+    /**
+     * Runs after the indexes have applied the change, so a search that misses the cleared cache reads them
+     * already updated instead of caching the state from before the commit under the new version.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onEmployeesChanged(EmployeesChangedEvent event){
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long getVersion(){
+        return version.get();
+    }
+
+    public CacheStats stats(){
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "employeeSearches");
+    }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static class SearchKey {
+
+        private final long version;
+        private final Double minSalary;
+        private final Double maxSalary;
+        private final String id;
+        private final String login;
+        private final String name;
+        private final long offset;
+        private final int limit;
+        private final Sort sort;
+    }
+}
@@ -1,12 +1,17 @@
 package com.linh.nphc.hrapp.services;
 
+import com.linh.nphc.hrapp.config.ImportDataSourceConfiguration;
 import com.linh.nphc.hrapp.exceptions.DuplicateRowException;
 import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
 import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
 import com.linh.nphc.hrapp.exceptions.UnableToSaveEmployeeException;
 import com.linh.nphc.hrapp.models.Employee;
 import com.linh.nphc.hrapp.models.EmployeeDTO;
+import com.linh.nphc.hrapp.models.KeysetCursor;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
 import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import com.linh.nphc.hrapp.services.EmployeeMetrics.Stage;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.enums.CSVReaderNullFieldIndicator;
@@ -14,96 +19,259 @@ import com.opencsv.exceptions.CsvException;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @Log4j2
 public class EmployeeService {
 
-    private final static int COLUMN_ID = 0;
-    private final static int COLUMN_LOGIN = 1;
-    private final static int COLUMN_NAME = 2;
-    private final static int COLUMN_SALARY = 3;
-    private final static int COLUMN_START_DATE = 4;
-
     @Autowired
     private EmployeeRepository employeeRepository;
 
-    @Transactional
-    public void processFile(MultipartFile file){
-        List<String[]> contentRows = this.getFileContent(file);
-        List<String> idList = new ArrayList<>();
-        contentRows.forEach(row -> {
-            Employee employee = this.convertToEmployee(row);
+    @Autowired
+    private EmployeeJdbcRepository employeeJdbcRepository;
 
-            this.validateEmployee(employee);
+    @Autowired
+    private Validator validator;
 
-            if (employee.getId().startsWith("#")){
-                return;
-            }
-            if (idList.contains(employee.getId())){
-                throw new DuplicateRowException(String.format("ID %s is duplicated", employee.getId()));
-            }
-            idList.add(employee.getId());
-            this.saveEmployee(employee);
-        });
+    @Autowired
+    private EmployeeValidator employeeValidator;
+
+    @Autowired
+    private StartDateParser startDateParser;
+
+    @Autowired
+    private EmployeeRowConverter employeeRowConverter;
+
+    @Autowired
+    private EmployeeChangeTracker employeeChangeTracker;
+
+    @Autowired
+    private EmployeeNameIndex employeeNameIndex;
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EmployeeSearchCache employeeSearchCache;
+
+    @Autowired
+    private EmployeeHashStore employeeHashStore;
+
+    @Autowired
+    private EmployeeColumnStore employeeColumnStore;
+
+    @Autowired
+    private EmployeeMetrics employeeMetrics;
 
+    @Value("${hrapp.upload.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${hrapp.upload.fast-validation:true}")
+    private boolean fastValidation;
+
+    @Value("${hrapp.upload.fast-parsing:true}")
+    private boolean fastParsing;
+
+    @Value("${hrapp.upload.workers:1}")
+    private int workers;
+
+    @Value("${hrapp.upload.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${hrapp.import.base-dir:}")
+    private String importBaseDir;
+
+    private ExecutorService workerPool;
+
+    @PostConstruct
+    public void startWorkers(){
+        if (workers > 1){
+            workerPool = new ForkJoinPool(workers);
+        }
     }
 
-    private List<String[]> getFileContent(MultipartFile file){
-        try {
-            Reader reader = new InputStreamReader(file.getInputStream());
-            CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).withFieldAsNull(CSVReaderNullFieldIndicator.BOTH).build();
-            return csvReader.readAll();
-        } catch (IOException | CsvException e) {
+    @PreDestroy
+    public void stopWorkers(){
+        if (workerPool != null){
+            workerPool.shutdownNow();
+        }
+    }
+
+    @Transactional(ImportDataSourceConfiguration.IMPORT_TRANSACTION_MANAGER)
+    public void processFile(InputStreamSource file){
+        this.processFile(file, new UploadProgress());
+    }
+
+    @Transactional(ImportDataSourceConfiguration.IMPORT_TRANSACTION_MANAGER)
+    public void processFile(InputStreamSource file, UploadProgress progress){
+        this.importFile(file, progress, this::saveEmployees);
+    }
+
+    /**
+     * Imports the file in upsert mode: new employees are inserted, changed ones updated and identical ones skipped,
+     * with the counts of each kept in the progress.
+     */
+    @Transactional(ImportDataSourceConfiguration.IMPORT_TRANSACTION_MANAGER)
+    public void upsertFile(InputStreamSource file, UploadProgress progress){
+        this.importFile(file, progress, this::upsertEmployees);
+    }
+
+    private void importFile(InputStreamSource file, UploadProgress progress, BiConsumer<List<Employee>, UploadProgress> writer){
+        if (fastParsing){
+            try (EmployeeCsvTokenizer tokenizer = new EmployeeCsvTokenizer(file.getInputStream())) {
+                this.importRows(tokenizer, this::convertAndValidate, progress, writer);
+            } catch (IOException e) {
+                throw new UnableToReadFileException(String.format("Unable to read file %s", e.getMessage()));
+            }
+            return;
+        }
+        try (CSVReader csvReader = this.getFileContent(file)) {
+            this.importRows(() -> this.readRow(csvReader), this::convertAndValidate, progress, writer);
+        } catch (IOException e) {
             throw new UnableToReadFileException(String.format("Unable to read file %s", e.getMessage()));
         }
     }
 
-    private Employee convertToEmployee(String[] row){
+    private <T> void importRows(RowReader<T> rows, Function<T, Employee> converter, UploadProgress progress,
+                                BiConsumer<List<Employee>, UploadProgress> writer) throws IOException {
+        Set<String> ids = new HashSet<>();
+        Set<String> logins = new HashSet<>();
+        List<Employee> batch = new ArrayList<>();
+        UploadPipeline<T> pipeline = new UploadPipeline<>(converter, workerPool, workers, chunkSize);
+        RowReader<T> timedRows = () -> {
+            long start = employeeMetrics.start();
+            T row = rows.readNext();
+            employeeMetrics.stage(Stage.PARSE, start);
+            return row;
+        };
+        employeeMetrics.importStarted(progress);
         try {
-            String id = StringUtils.isBlank(row[COLUMN_ID]) ? null : row[COLUMN_ID];
-            String login = StringUtils.isBlank(row[COLUMN_LOGIN]) ? null : row[COLUMN_LOGIN];
-            String name = StringUtils.isBlank(row[COLUMN_NAME]) ? null : row[COLUMN_NAME];
-            LocalDate startDate = this.parseDate(row[COLUMN_START_DATE]);
-            Double salary = StringUtils.isBlank(row[COLUMN_SALARY]) ? null : Double.valueOf(row[COLUMN_SALARY]);
+            pipeline.run(timedRows, employee -> {
+                progress.rowParsed();
+                if (employee.getId().startsWith("#")){
+                    return;
+                }
+                if (!ids.add(employee.getId())){
+                    throw new DuplicateRowException(String.format("ID %s is duplicated", employee.getId()));
+                }
+                if (!logins.add(employee.getLogin())){
+                    throw new DuplicateRowException(String.format("Login %s is duplicated", employee.getLogin()));
+                }
+                if (employeeHashStore.isUnchanged(employee)){
+                    progress.rowsSkipped(1);
+                    employeeMetrics.rowsSkipped(1);
+                    return;
+                }
+                batch.add(employee);
+                if (batch.size() >= batchSize){
+                    writer.accept(batch, progress);
+                }
+            });
+            writer.accept(batch, progress);
+        } finally {
+            employeeMetrics.importFinished(progress);
+        }
+    }
+
+    /**
+     * Imports a CSV file that already sits on the server, resolved against hrapp.import.base-dir, by memory-mapping it
+     * instead of going through a multipart upload and a Reader. Uses the same checks and writes as an upload.
+     */
+    @Transactional(ImportDataSourceConfiguration.IMPORT_TRANSACTION_MANAGER)
+    public void importPath(String path, UploadProgress progress){
+        Path file = this.resolveImportPath(path);
+        try (MappedCsvReader rows = new MappedCsvReader(file)) {
+            this.importRows(rows, this::convertAndValidate, progress, this::saveEmployees);
+        } catch (IOException e) {
+            throw new UnableToReadFileException(String.format("Unable to read file %s", e.getMessage()));
+        }
+    }
 
-            return new Employee(id, login, name, salary, startDate);
-        } catch (NumberFormatException ex){
-            throw new UnableToReadFileException(String.format("Unable to parse number %s", row[COLUMN_SALARY]));
+    private Path resolveImportPath(String path){
+        if (StringUtils.isBlank(importBaseDir)){
+            throw new InvalidFieldException("Import from path is disabled");
+        }
+        try {
+            Path baseDir = Paths.get(importBaseDir).toRealPath();
+            Path file = baseDir.resolve(path).toRealPath();
+            if (!file.startsWith(baseDir) || !Files.isRegularFile(file)){
+                throw new InvalidFieldException(String.format("Path %s is not a file in the import directory", path));
+            }
+            return file;
+        } catch (IOException | InvalidPathException e) {
+            throw new InvalidFieldException(String.format("Path %s is not a file in the import directory", path));
         }
     }
 
-    private LocalDate parseDate(String dateStr){
-        String[] dateFormats = {"yyyy-MM-dd", "dd-MMM-yy"};
-        for (String format : dateFormats){
-            try {
-                return LocalDate.parse(dateStr, DateTimeFormatter.ofPattern(format));
-            } catch (DateTimeParseException ignored) {}
+    private String[] readRow(CSVReader csvReader) throws IOException {
+        try {
+            return csvReader.readNext();
+        } catch (CsvException e) {
+            throw new UnableToReadFileException(String.format("Unable to read file %s", e.getMessage()));
         }
+    }
+
+    /**
+     * Opens the uploaded file as a row-by-row CSV reader so rows are converted and saved
+     * while the file is being read instead of buffering the whole content first.
+     */
+    private CSVReader getFileContent(InputStreamSource file) throws IOException {
+        Reader reader = new InputStreamReader(file.getInputStream());
+        return new CSVReaderBuilder(reader).withSkipLines(1).withFieldAsNull(CSVReaderNullFieldIndicator.BOTH).build();
+    }
+
+    private Employee convertAndValidate(String[] row){
+        long start = employeeMetrics.start();
+        return this.validateConverted(employeeRowConverter.convert(row), start);
+    }
+
+    private Employee convertAndValidate(EmployeeCsvRow row){
+        long start = employeeMetrics.start();
+        return this.validateConverted(employeeRowConverter.convert(row), start);
+    }
 
-        throw new UnableToReadFileException(String.format("Invalid date %s", dateStr));
+    private Employee validateConverted(Employee employee, long convertStart){
+        long converted = employeeMetrics.stage(Stage.CONVERT, convertStart);
+        this.validateUploadedEmployee(employee);
+        employeeMetrics.stage(Stage.VALIDATE, converted);
+        return employee;
+    }
+
+    private void validateUploadedEmployee(Employee employee){
+        if (fastValidation){
+            employeeValidator.validate(employee);
+        } else {
+            this.validateEmployee(employee);
+        }
     }
 
     private void validateEmployee(Employee employee){
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        Validator validator = factory.getValidator();
         Set<ConstraintViolation<Employee>> violations = validator.validate(employee);
         for (ConstraintViolation<Employee> violation : violations) {
             throw new InvalidFieldException(violation.getMessage());
@@ -111,26 +279,145 @@ public class EmployeeService {
     }
 
     private void saveEmployee(Employee employee){
+        long start = employeeMetrics.start();
         try{
             employeeRepository.save(employee);
         } catch (Exception e){
             throw new UnableToSaveEmployeeException(String.format("Unable to save employee %s", employee.toString()));
         }
+        employeeMetrics.stage(Stage.WRITE, start);
+    }
+
+    private void saveEmployees(List<Employee> batch, UploadProgress progress){
+        if (batch.isEmpty()){
+            return;
+        }
+        long start = employeeMetrics.start();
+        try{
+            employeeJdbcRepository.saveAll(batch);
+        } catch (DataIntegrityViolationException e){
+            throw e;
+        } catch (Exception e){
+            throw new UnableToSaveEmployeeException(String.format("Unable to save employees from %s", batch.get(0).toString()));
+        }
+        employeeMetrics.stage(Stage.WRITE, start);
+        // Written with plain JDBC, so the entity listener never sees these rows
+        batch.forEach(employee -> employeeChangeTracker.changed(employee.getId()));
+        progress.rowsWritten(batch.size());
+        employeeMetrics.rowsWritten(batch.size());
+        batch.clear();
+    }
+
+    private void upsertEmployees(List<Employee> batch, UploadProgress progress){
+        if (batch.isEmpty()){
+            return;
+        }
+        List<Employee> changed;
+        long start = employeeMetrics.start();
+        try{
+            changed = employeeJdbcRepository.upsertAll(batch, progress);
+        } catch (DataIntegrityViolationException e){
+            throw e;
+        } catch (Exception e){
+            throw new UnableToSaveEmployeeException(String.format("Unable to save employees from %s", batch.get(0).toString()));
+        }
+        employeeMetrics.stage(Stage.WRITE, start);
+        changed.forEach(employee -> employeeChangeTracker.changed(employee.getId()));
+        employeeMetrics.rowsWritten(changed.size());
+        batch.clear();
     }
 
     @Transactional
     public List<Employee> getEmployees(Double minSalary, Double maxSalary, String id, String login, String name, Pageable pageable){
+        long start = employeeMetrics.start();
+        try {
+            return this.employeeSearchCache.get(minSalary, maxSalary, id, login, name, pageable,
+                    () -> this.searchEmployees(minSalary, maxSalary, id, login, name, pageable));
+        } finally {
+            employeeMetrics.search(id, login, name, start);
+        }
+    }
+
+    private List<Employee> searchEmployees(Double minSalary, Double maxSalary, String id, String login, String name, Pageable pageable){
+        Optional<List<Employee>> stored = this.employeeColumnStore.findEmployees(minSalary, maxSalary, id, login, name, pageable);
+        if (stored.isPresent()){
+            return stored.get();
+        }
+        Optional<Set<String>> nameMatches = this.findIdsByName(name);
+        if (nameMatches.isPresent()){
+            return nameMatches.get().isEmpty() ? Collections.emptyList()
+                    : this.employeeRepository.findEmployeesBySalaryRangeAndLoginAndIDAmong(minSalary, maxSalary, id, login, nameMatches.get(), pageable);
+        }
         return this.employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(minSalary, maxSalary, id, login, name, pageable);
     }
 
+    @Transactional
+    public List<Employee> getEmployeesAfter(Double minSalary, Double maxSalary, String id, String login, String name,
+                                            String sort, Sort.Direction direction, KeysetCursor after, int limit){
+        Optional<Set<String>> nameMatches = this.findIdsByName(name);
+        if (nameMatches.isPresent()){
+            return nameMatches.get().isEmpty() ? Collections.emptyList()
+                    : this.employeeRepository.findEmployeesAfterAmong(minSalary, maxSalary, id, login, nameMatches.get(), sort, direction, after, limit);
+        }
+        return this.employeeRepository.findEmployeesAfter(minSalary, maxSalary, id, login, name, sort, direction, after, limit);
+    }
+
+    /**
+     * Hands every matching employee to the consumer in order, holding one row at a time instead of the whole result.
+     *
+     * @param limit when not null, the most employees to hand over
+     */
+    @Transactional(readOnly = true)
+    public void streamEmployees(Double minSalary, Double maxSalary, String id, String login, String name, Sort sort, long offset,
+                                Integer limit, Consumer<Employee> consumer){
+        Optional<Set<String>> nameMatches = this.findIdsByName(name);
+        if (nameMatches.isPresent() && nameMatches.get().isEmpty()){
+            return;
+        }
+        String nameFilter = nameMatches.isPresent() ? null : name;
+        try (Stream<Employee> employees = this.employeeRepository.streamEmployees(minSalary, maxSalary, id, login, nameFilter,
+                nameMatches.orElse(null), sort, offset, limit)){
+            employees.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long countEmployees(Double minSalary, Double maxSalary, String id, String login, String name){
+        Optional<Set<String>> nameMatches = this.findIdsByName(name);
+        if (nameMatches.isPresent()){
+            return nameMatches.get().isEmpty() ? 0
+                    : this.employeeRepository.countEmployees(minSalary, maxSalary, id, login, null, nameMatches.get());
+        }
+        return this.employeeRepository.countEmployees(minSalary, maxSalary, id, login, name, null);
+    }
+
+    /**
+     * Hands every matching employee to the consumer in id order as a row in the /users/upload column order.
+     * Runs in a read-only transaction so that the rows are streamed through a cursor: drivers such as PostgreSQL's
+     * ignore the fetch size in autocommit mode and would read the whole result first.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployees(Double minSalary, Double maxSalary, String login, String name, Consumer<String[]> consumer){
+        Optional<Set<String>> nameMatches = this.findIdsByName(name);
+        if (nameMatches.isPresent() && nameMatches.get().isEmpty()){
+            return;
+        }
+        this.employeeJdbcRepository.exportRows(minSalary, maxSalary, login, nameMatches.isPresent() ? null : name,
+                nameMatches.orElse(null), consumer);
+    }
+
+    private Optional<Set<String>> findIdsByName(String name){
+        return name == null ? Optional.empty() : employeeNameIndex.findIdsByName(name);
+    }
+
     @Transactional
     public Employee getEmployee(String id){
-        return this.employeeRepository.findById(id).orElse(null);
+        return this.employeeCache.get(id, key -> this.employeeRepository.findById(key).orElse(null));
     }
 
     @Transactional
     public void createEmployee(EmployeeDTO employeeDTO){
-        Employee employee = new Employee(employeeDTO.getId(), employeeDTO.getLogin(), employeeDTO.getName(), employeeDTO.getSalary(), this.parseDate(employeeDTO.getStartDate()));
+        Employee employee = new Employee(employeeDTO.getId(), employeeDTO.getLogin(), employeeDTO.getName(), employeeDTO.getSalary(), startDateParser.parse(employeeDTO.getStartDate()));
         this.validateEmployee(employee);
         if (this.employeeRepository.findById(employee.getId()).isPresent()){
             throw new InvalidFieldException("Employee ID already exists");
@@ -143,7 +430,7 @@ public class EmployeeService {
 
     @Transactional
     public void updateEmployee(EmployeeDTO employeeDTO) {
-        Employee employee = new Employee(employeeDTO.getId(), employeeDTO.getLogin(), employeeDTO.getName(), employeeDTO.getSalary(), this.parseDate(employeeDTO.getStartDate()));
+        Employee employee = new Employee(employeeDTO.getId(), employeeDTO.getLogin(), employeeDTO.getName(), employeeDTO.getSalary(), startDateParser.parse(employeeDTO.getStartDate()));
         this.validateEmployee(employee);
         Employee existingEmployee = this.employeeRepository.findById(employee.getId()).orElseThrow(() -> new InvalidFieldException("No such employee"));
         Optional<Employee> existingEmployeeByLogin = this.employeeRepository.findByLogin(employee.getLogin());
@@ -0,0 +1,39 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import com.linh.nphc.hrapp.models.Employee;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hand-written equivalent of the Bean Validation constraints declared on {@link Employee},
+ * used on the upload path where the reflective validator is too expensive to run per row.
+ * Messages must be kept in line with the annotations on {@link Employee}.
+ */
+@Component
+public class EmployeeValidator {
+
+    public void validate(Employee employee){
+        this.requireNotBlank(employee.getId(), "ID");
+        this.requireNotBlank(employee.getLogin(), "Login");
+        this.requireNotBlank(employee.getName(), "Name");
+        if (employee.getSalary() == null){
+            throw new InvalidFieldException("Salary cannot be null");
+        }
+        if (!(employee.getSalary() >= 0.0)){
+            throw new InvalidFieldException("Invalid salary");
+        }
+        if (employee.getStartDate() == null){
+            throw new InvalidFieldException("Start date cannot be null");
+        }
+    }
+
+    private void requireNotBlank(String value, String field){
+        if (value == null){
+            throw new InvalidFieldException(String.format("%s cannot be null", field));
+        }
+        if (StringUtils.isBlank(value)){
+            throw new InvalidFieldException(String.format("%s cannot be blank", field));
+        }
+    }
+}
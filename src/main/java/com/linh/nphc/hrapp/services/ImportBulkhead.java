@@ -0,0 +1,56 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UploadRejectedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for the imports that run on the request thread: at most max-concurrent run at once and
+ * queue-capacity more may wait their turn, so uploads can never hold more than that many request threads and
+ * the rest stay free for reads. Further imports are rejected straight away instead of queueing without bound.
+ */
+@Component
+public class ImportBulkhead {
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final Semaphore running;
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    @Autowired
+    public ImportBulkhead(@Value("${hrapp.import.max-concurrent:2}") int maxConcurrent,
+                          @Value("${hrapp.import.queue-capacity:4}") int queueCapacity){
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.running = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Runs the import on the calling thread once a slot is free.
+     *
+     * @throws UploadRejectedException when max-concurrent imports are running and queue-capacity more are waiting
+     */
+    public void run(Runnable importTask){
+        if (admitted.incrementAndGet() > maxConcurrent + queueCapacity){
+            admitted.decrementAndGet();
+            throw new UploadRejectedException("Too many uploads in progress, please try again later");
+        }
+        try {
+            running.acquire();
+        } catch (InterruptedException e){
+            admitted.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new UploadRejectedException("Interrupted while waiting for other uploads to finish");
+        }
+        try {
+            importTask.run();
+        } finally {
+            running.release();
+            admitted.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.linh.nphc.hrapp.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rebuilds the in-memory indexes after a change too large to apply row by row, in the background so the commit
+ * that caused it does not wait for the table to be read. Rebuilds run one at a time on a single thread, and a request
+ * for an index whose rebuild has not started yet is merged into it; one requested while the rebuild runs queues
+ * another, as the running one may have read the table before the change.
+ */
+@Component
+@Log4j2
+public class IndexReloader {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "index-reload"));
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public void request(String index, Runnable reload){
+        if (!pending.add(index)){
+            return;
+        }
+        executor.execute(() -> {
+            pending.remove(index);
+            try {
+                reload.run();
+            } catch (RuntimeException e){
+                log.error("Unable to reload the {}", index, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop(){
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,206 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads CSV rows straight from a memory-mapped file, scanning the UTF-8 bytes for separators and quotes
+ * (all ASCII, so they can never appear inside a multi-byte character) and decoding only the field contents.
+ * Follows the CSVReader settings of the upload path like {@link EmployeeCsvTokenizer} does: the header line is
+ * skipped, fields may be quoted with doubled quotes inside, backslashes escape a quote or another backslash and are
+ * dropped otherwise, a quoted field left open at the end of the file is an error, and empty fields, quoted or not,
+ * are read as null.
+ * Files larger than a window are mapped one window at a time, each starting at the beginning of a row.
+ */
+public class MappedCsvReader implements RowReader<String[]>, Closeable {
+
+    static final long DEFAULT_WINDOW = 1L << 30;
+
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final FileChannel channel;
+    private final long size;
+    private final long window;
+    private final List<String> fields = new ArrayList<>(5);
+    private byte[] scratch = new byte[256];
+
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+    private int position;
+
+    public MappedCsvReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    MappedCsvReader(Path file, long window) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.window = window;
+        this.map(0);
+        if (this.startsWithBom()){
+            position = BOM.length;
+        }
+        this.readNext();
+    }
+
+    @Override
+    public String[] readNext() throws IOException {
+        while (true){
+            if (bufferStart + position >= size){
+                return null;
+            }
+            boolean lastWindow = bufferStart + buffer.limit() >= size;
+            int end = this.parseRow(lastWindow);
+            if (end >= 0){
+                position = end;
+                return fields.toArray(new String[0]);
+            }
+            if (position == 0){
+                throw new IOException(String.format("Row at byte %d is longer than %d bytes", bufferStart, window));
+            }
+            this.map(bufferStart + position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(window, size - start));
+        bufferStart = start;
+        position = 0;
+    }
+
+    private boolean startsWithBom(){
+        if (buffer.limit() < BOM.length){
+            return false;
+        }
+        for (int i = 0; i < BOM.length; i++){
+            if (buffer.get(i) != BOM[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the row starting at the current position into fields, with the quoting and escaping rules of
+     * {@link EmployeeCsvTokenizer}: a backslash keeps the quote or backslash after it once the field has started
+     * and is dropped in every other case.
+     *
+     * @return the position after the row's line break, or -1 when the row runs past the end of a window that is not the last
+     * @throws UnableToReadFileException when a quoted field is still open at the end of the file
+     */
+    private int parseRow(boolean lastWindow){
+        fields.clear();
+        int limit = buffer.limit();
+        int i = position;
+        while (true){
+            int length = 0;
+            boolean inField = false;
+            if (i < limit && buffer.get(i) == QUOTE){
+                i++;
+                inField = true;
+                while (true){
+                    if (i >= limit){
+                        if (!lastWindow){
+                            return -1;
+                        }
+                        throw new UnableToReadFileException("Unterminated quoted field");
+                    }
+                    byte b = buffer.get(i++);
+                    if (b == ESCAPE){
+                        if (i >= limit && !lastWindow){
+                            return -1;
+                        }
+                        if (i < limit && isEscapable(buffer.get(i))){
+                            length = this.append(length, buffer.get(i++));
+                        }
+                        continue;
+                    }
+                    if (b == QUOTE){
+                        if (i >= limit && !lastWindow){
+                            return -1;
+                        }
+                        if (i < limit && buffer.get(i) == QUOTE){
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    length = this.append(length, b);
+                }
+                // CSVReader keeps a closing quote that more characters follow
+                if (i < limit && !isDelimiter(buffer.get(i))){
+                    length = this.append(length, QUOTE);
+                }
+            }
+            // Characters between the closing quote and the separator are kept, as CSVReader does
+            while (i < limit && !isDelimiter(buffer.get(i))){
+                byte b = buffer.get(i++);
+                if (b == ESCAPE){
+                    if (i >= limit && !lastWindow){
+                        return -1;
+                    }
+                    if (inField && i < limit && isEscapable(buffer.get(i))){
+                        length = this.append(length, buffer.get(i++));
+                    }
+                    continue;
+                }
+                inField = true;
+                length = this.append(length, b);
+            }
+            fields.add(length == 0 ? null : new String(scratch, 0, length, StandardCharsets.UTF_8));
+
+            if (i >= limit){
+                return lastWindow ? i : -1;
+            }
+            byte delimiter = buffer.get(i++);
+            if (delimiter == SEPARATOR){
+                continue;
+            }
+            if (delimiter == CR){
+                if (i >= limit && !lastWindow){
+                    return -1;
+                }
+                if (i < limit && buffer.get(i) == LF){
+                    i++;
+                }
+            }
+            return i;
+        }
+    }
+
+    private int append(int length, byte b){
+        if (length == scratch.length){
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+        scratch[length] = b;
+        return length + 1;
+    }
+
+    private static boolean isDelimiter(byte b){
+        return b == SEPARATOR || b == LF || b == CR;
+    }
+
+    private static boolean isEscapable(byte b){
+        return b == QUOTE || b == ESCAPE;
+    }
+}
@@ -0,0 +1,13 @@
+package com.linh.nphc.hrapp.services;
+
+import java.io.IOException;
+
+/**
+ * Source of raw upload rows, returning null once the input is exhausted.
+ */
+@FunctionalInterface
+public interface RowReader<T> {
+
+    T readNext() throws IOException;
+
+}
@@ -0,0 +1,236 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses employee start dates against a configurable list of patterns.
+ * Formatters are compiled once, and each pattern also gets a fixed-width "shape" so the matching
+ * pattern is picked by looking at the characters instead of trying every formatter and catching the failures.
+ * yyyy-MM-dd and dd-MMM-yy are parsed by hand, with the same SMART resolution rules as the formatter.
+ * Values are read as a CharSequence so that the upload tokenizer can pass a view of its buffer instead of a String.
+ */
+@Component
+public class StartDateParser {
+
+    public static final String ISO_FORMAT = "yyyy-MM-dd";
+    public static final String SHORT_FORMAT = "dd-MMM-yy";
+    public static final String[] DEFAULT_FORMATS = {ISO_FORMAT, SHORT_FORMAT};
+
+    private static final List<DatePattern> DEFAULT_PATTERNS = compile(DEFAULT_FORMATS);
+
+    private static final char DIGIT = '\u0001';
+    private static final char LETTER = '\u0002';
+
+    private final List<DatePattern> patterns;
+
+    @Autowired
+    public StartDateParser(@Value("${hrapp.date-formats:yyyy-MM-dd,dd-MMM-yy}") String[] formats){
+        this.patterns = Arrays.equals(formats, DEFAULT_FORMATS) ? DEFAULT_PATTERNS : compile(formats);
+    }
+
+    /**
+     * @return the parsed date, or null when dateStr is null so that validation reports the missing value
+     * @throws UnableToReadFileException when dateStr matches none of the configured formats
+     */
+    public LocalDate parse(CharSequence dateStr){
+        if (dateStr == null){
+            return null;
+        }
+        for (DatePattern pattern : patterns){
+            if (pattern.matchesShape(dateStr)){
+                LocalDate date = pattern.parse(dateStr);
+                if (date != null){
+                    return date;
+                }
+            }
+        }
+        // Shapes only describe the usual fixed-width input, anything else gets the formatters the slow way
+        for (DatePattern pattern : patterns){
+            if (!pattern.matchesShape(dateStr)){
+                try {
+                    return LocalDate.parse(dateStr, pattern.formatter);
+                } catch (DateTimeParseException ignored) {}
+            }
+        }
+        throw new UnableToReadFileException(String.format("Invalid date %s", dateStr));
+    }
+
+    private static List<DatePattern> compile(String[] formats){
+        List<DatePattern> patterns = new ArrayList<>();
+        for (String format : formats){
+            patterns.add(new DatePattern(format.trim()));
+        }
+        return Collections.unmodifiableList(patterns);
+    }
+
+    /**
+     * Builds the shape of a pattern, one character per input character: a digit marker, a letter marker or a literal.
+     * Returns null for patterns whose output width is not fixed.
+     */
+    private static char[] shapeOf(String format){
+        StringBuilder shape = new StringBuilder();
+        int i = 0;
+        while (i < format.length()){
+            char c = format.charAt(i);
+            if (c == '\'') {
+                int end = format.indexOf('\'', i + 1);
+                if (end < 0 || end == i + 1){
+                    return null;
+                }
+                shape.append(format, i + 1, end);
+                i = end + 1;
+                continue;
+            }
+            int run = 1;
+            while (i + run < format.length() && format.charAt(i + run) == c){
+                run++;
+            }
+            if (Character.isLetter(c)){
+                if (c == 'M' && run == 3){
+                    appendRepeated(shape, LETTER, 3);
+                } else if ((c == 'y' || c == 'u') && (run == 2 || run == 4)){
+                    appendRepeated(shape, DIGIT, run);
+                } else if ((c == 'M' || c == 'd') && run == 2){
+                    appendRepeated(shape, DIGIT, run);
+                } else {
+                    return null;
+                }
+            } else {
+                appendRepeated(shape, c, run);
+            }
+            i += run;
+        }
+        return shape.toString().toCharArray();
+    }
+
+    private static void appendRepeated(StringBuilder builder, char c, int count){
+        for (int i = 0; i < count; i++){
+            builder.append(c);
+        }
+    }
+
+    /**
+     * Parses yyyy-MM-dd without the formatter, returning null instead of throwing when the value is not a date.
+     * Like DateTimeFormatter's SMART resolver, a day of 29-31 past the end of the month is moved back to the last day.
+     */
+    static LocalDate parseIso(CharSequence dateStr){
+        int year = digits(dateStr, 0, 4);
+        int month = digits(dateStr, 5, 7);
+        int day = digits(dateStr, 8, 10);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31){
+            return null;
+        }
+        int lengthOfMonth = YearMonth.of(year, month).lengthOfMonth();
+        return LocalDate.of(year, month, Math.min(day, lengthOfMonth));
+    }
+
+    /**
+     * Parses dd-MMM-yy without the formatter, given the formatter's short month names, returning null instead of throwing.
+     * Two-digit years fall in 2000-2099 as with the formatter's reduced year.
+     */
+    static LocalDate parseShort(CharSequence dateStr, String[] monthNames){
+        int day = digits(dateStr, 0, 2);
+        int year = 2000 + digits(dateStr, 7, 9);
+        int month = 0;
+        for (int i = 0; i < monthNames.length && month == 0; i++){
+            String name = monthNames[i];
+            if (name.charAt(0) == dateStr.charAt(3) && name.charAt(1) == dateStr.charAt(4) && name.charAt(2) == dateStr.charAt(5)){
+                month = i + 1;
+            }
+        }
+        if (month == 0 || day < 1 || day > 31){
+            return null;
+        }
+        int lengthOfMonth = YearMonth.of(year, month).lengthOfMonth();
+        return LocalDate.of(year, month, Math.min(day, lengthOfMonth));
+    }
+
+    private static int digits(CharSequence value, int from, int to){
+        int result = 0;
+        for (int i = from; i < to; i++){
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    private static class DatePattern {
+
+        private final DateTimeFormatter formatter;
+        private final char[] shape;
+        private final boolean iso;
+        private final String[] monthNames;
+
+        private DatePattern(String format){
+            this.formatter = DateTimeFormatter.ofPattern(format);
+            this.shape = shapeOf(format);
+            this.iso = ISO_FORMAT.equals(format);
+            this.monthNames = SHORT_FORMAT.equals(format) ? shortMonthNames(formatter) : null;
+        }
+
+        /**
+         * The formatter's month names, or null when the locale has names that are not three letters and the shape cannot match them.
+         */
+        private static String[] shortMonthNames(DateTimeFormatter formatter){
+            DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM", formatter.getLocale());
+            String[] names = new String[12];
+            for (Month month : Month.values()){
+                String name = monthFormatter.format(LocalDate.of(2000, month, 1));
+                if (name.length() != 3 || !Character.isLetter(name.charAt(0)) || !Character.isLetter(name.charAt(1))
+                        || !Character.isLetter(name.charAt(2))){
+                    return null;
+                }
+                names[month.ordinal()] = name;
+            }
+            return names;
+        }
+
+        private boolean matchesShape(CharSequence value){
+            if (shape == null || value.length() != shape.length){
+                return false;
+            }
+            for (int i = 0; i < shape.length; i++){
+                char c = value.charAt(i);
+                if (shape[i] == DIGIT){
+                    if (c < '0' || c > '9'){
+                        return false;
+                    }
+                } else if (shape[i] == LETTER){
+                    if (!Character.isLetter(c)){
+                        return false;
+                    }
+                } else if (shape[i] != c){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private LocalDate parse(CharSequence value){
+            if (iso){
+                return parseIso(value);
+            }
+            if (monthNames != null){
+                return parseShort(value, monthNames);
+            }
+            try {
+                return LocalDate.parse(value, formatter);
+            } catch (DateTimeException ignored) {
+                return null;
+            }
+        }
+    }
+}
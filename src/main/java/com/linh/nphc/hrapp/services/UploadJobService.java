@@ -0,0 +1,113 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UploadRejectedException;
+import com.linh.nphc.hrapp.models.UploadJob;
+import com.linh.nphc.hrapp.models.UploadOutcome;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Runs uploads in the background on a bounded executor so the HTTP request can return straight away.
+ * At most max-concurrent imports run at once and queue-capacity more may wait; further uploads are rejected.
+ * Finished jobs are kept for polling for retention-minutes. Jobs run on virtual threads when hrapp.threads.virtual is on.
+ */
+@Service
+@Log4j2
+public class UploadJobService {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private VirtualThreads virtualThreads;
+
+    @Value("${hrapp.upload.jobs.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${hrapp.upload.jobs.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${hrapp.upload.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor jobExecutor;
+
+    @PostConstruct
+    public void start(){
+        jobExecutor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), virtualThreads.threadFactory("upload-job-"));
+    }
+
+    @PreDestroy
+    public void stop(){
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues the import of a file the caller has already copied off the request; the file is deleted once imported.
+     *
+     * @param mode whether the rows are inserted as by processFile or upserted as by upsertFile
+     * @throws UploadRejectedException when the job queue is full
+     */
+    public UploadJob submit(Path file, UploadJob.Mode mode){
+        this.purgeFinishedJobs();
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), mode);
+        jobs.put(job.getJobId(), job);
+        try {
+            jobExecutor.execute(() -> this.run(job, file));
+        } catch (RejectedExecutionException e){
+            jobs.remove(job.getJobId());
+            this.delete(file);
+            throw new UploadRejectedException("Too many uploads in progress, please try again later");
+        }
+        return job;
+    }
+
+    public Optional<UploadJob> getJob(String jobId){
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(UploadJob job, Path file){
+        job.start();
+        try {
+            if (job.getMode() == UploadJob.Mode.UPSERT){
+                employeeService.upsertFile(new FileSystemResource(file), job.getProgress());
+            } else {
+                employeeService.processFile(new FileSystemResource(file), job.getProgress());
+            }
+            job.finish(UploadOutcome.created());
+        } catch (RuntimeException e){
+            job.finish(UploadOutcome.failed(e));
+        } finally {
+            this.delete(file);
+        }
+    }
+
+    private void purgeFinishedJobs(){
+        long expiry = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < expiry);
+    }
+
+    private void delete(Path file){
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e){
+            log.warn("Unable to delete uploaded file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs upload rows through reader, converter and writer stages.
+ * Without a worker pool every row is converted and written on the calling thread.
+ * With a pool, rows are read in chunks and each chunk is split into one slice per worker to be converted in parallel,
+ * while the calling thread writes the previous chunk. The writer always receives rows in file order, and a conversion
+ * error is only thrown once every row before it has been written, so the first error in the file wins as before.
+ * The same goes for a row the reader itself rejects or fails to read: reading stops there and the error, runtime or
+ * IOException, waits for the rows before it.
+ */
+public class UploadPipeline<T> {
+
+    private final Function<T, Employee> converter;
+    private final ExecutorService workerPool;
+    private final int workers;
+    private final int chunkSize;
+
+    public UploadPipeline(Function<T, Employee> converter){
+        this(converter, null, 1, 1);
+    }
+
+    public UploadPipeline(Function<T, Employee> converter, ExecutorService workerPool, int workers, int chunkSize){
+        this.converter = converter;
+        this.workerPool = workerPool;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+    }
+
+    public void run(RowReader<T> reader, Consumer<Employee> writer) throws IOException {
+        if (workerPool == null || workers < 2){
+            T row;
+            while ((row = reader.readNext()) != null){
+                writer.accept(converter.apply(row));
+            }
+            return;
+        }
+
+        Deque<List<Future<ConvertedSlice>>> inFlight = new ArrayDeque<>();
+        RuntimeException readError = null;
+        try {
+            while (readError == null){
+                List<T> chunk = new ArrayList<>(chunkSize);
+                try {
+                    this.readChunk(reader, chunk);
+                } catch (RuntimeException e){
+                    readError = e;
+                } catch (IOException e){
+                    readError = new UncheckedIOException(e);
+                }
+                if (chunk.isEmpty()){
+                    break;
+                }
+                inFlight.add(this.submit(chunk));
+                if (inFlight.size() > 1){
+                    this.write(inFlight.poll(), writer);
+                }
+            }
+            while (!inFlight.isEmpty()){
+                this.write(inFlight.poll(), writer);
+            }
+            if (readError instanceof UncheckedIOException){
+                throw ((UncheckedIOException) readError).getCause();
+            }
+            if (readError != null){
+                throw readError;
+            }
+        } finally {
+            inFlight.forEach(slices -> slices.forEach(slice -> slice.cancel(true)));
+        }
+    }
+
+    private void readChunk(RowReader<T> reader, List<T> chunk) throws IOException {
+        T row;
+        while (chunk.size() < chunkSize && (row = reader.readNext()) != null){
+            chunk.add(row);
+        }
+    }
+
+    private List<Future<ConvertedSlice>> submit(List<T> chunk){
+        int sliceSize = (chunk.size() + workers - 1) / workers;
+        List<Future<ConvertedSlice>> slices = new ArrayList<>(workers);
+        for (int from = 0; from < chunk.size(); from += sliceSize){
+            List<T> rows = chunk.subList(from, Math.min(from + sliceSize, chunk.size()));
+            slices.add(workerPool.submit(() -> this.convert(rows)));
+        }
+        return slices;
+    }
+
+    private ConvertedSlice convert(List<T> rows){
+        ConvertedSlice slice = new ConvertedSlice(rows.size());
+        for (T row : rows){
+            try {
+                slice.employees.add(converter.apply(row));
+            } catch (RuntimeException e){
+                slice.error = e;
+                break;
+            }
+        }
+        return slice;
+    }
+
+    private void write(List<Future<ConvertedSlice>> slices, Consumer<Employee> writer){
+        for (Future<ConvertedSlice> future : slices){
+            ConvertedSlice slice = this.await(future);
+            slice.employees.forEach(writer);
+            if (slice.error != null){
+                throw slice.error;
+            }
+        }
+    }
+
+    private ConvertedSlice await(Future<ConvertedSlice> future){
+        try {
+            return future.get();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while converting rows", e);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class ConvertedSlice {
+
+        private final List<Employee> employees;
+        private RuntimeException error;
+
+        private ConvertedSlice(int size){
+            this.employees = new ArrayList<>(size);
+        }
+    }
+}
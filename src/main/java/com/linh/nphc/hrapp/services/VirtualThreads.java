@@ -0,0 +1,75 @@
+package com.linh.nphc.hrapp.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads that run requests and upload jobs: virtual threads when hrapp.threads.virtual is on,
+ * platform threads otherwise. The project still targets Java 8, so the virtual thread API is looked up
+ * reflectively and turning the mode on under a JDK without it (before 21) fails at startup.
+ */
+@Component
+public class VirtualThreads {
+
+    private final boolean enabled;
+
+    public VirtualThreads(@Value("${hrapp.threads.virtual:false}") boolean enabled){
+        this.enabled = enabled;
+        if (enabled && !isSupported()){
+            throw new IllegalStateException("hrapp.threads.virtual needs Java 21 or later, running on " + System.getProperty("java.version"));
+        }
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * @return a factory naming its threads prefix1, prefix2 and so on
+     */
+    public ThreadFactory threadFactory(String prefix){
+        if (!enabled){
+            AtomicInteger threadCount = new AtomicInteger();
+            return runnable -> new Thread(runnable, prefix + threadCount.incrementAndGet());
+        }
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e){
+            throw new IllegalStateException("Unable to create virtual threads", unwrap(e));
+        }
+    }
+
+    /**
+     * @return an executor starting one virtual thread per task
+     */
+    public ExecutorService newThreadPerTaskExecutor(String prefix){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, this.threadFactory(prefix));
+        } catch (ReflectiveOperationException e){
+            throw new IllegalStateException("Unable to create virtual threads", unwrap(e));
+        }
+    }
+
+    private static boolean isSupported(){
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e){
+            return false;
+        }
+    }
+
+    private static Throwable unwrap(ReflectiveOperationException e){
+        return e instanceof InvocationTargetException ? e.getCause() : e;
+    }
+}
@@ -1,14 +1,21 @@
 package com.linh.nphc.hrapp;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.linh.nphc.hrapp.models.Employee;
 import com.linh.nphc.hrapp.models.EmployeeResponse;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
 import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import com.linh.nphc.hrapp.services.EmployeeSearchCache;
+import com.linh.nphc.hrapp.services.EmployeeService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,10 +29,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 
 @SpringBootTest(properties = {
         "spring.jpa.hibernate.ddl-auto=create-drop"
@@ -42,6 +54,12 @@ public class IntegrationTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeService employeeService;
+
+    @SpyBean
+    private EmployeeSearchCache employeeSearchCache;
+
     @AfterEach
     public void after(){
         employeeRepository.deleteAll();
@@ -56,12 +74,143 @@ public class IntegrationTest {
         assertEquals(10, employees.size());
     }
 
+    @Test
+    public void shouldUpsertInBackgroundWhenAsyncUploadIsInUpsertMode() throws Exception {
+        this.shouldProcessFile();
+        byte[] content = getFile("employees.csv").getBytes();
+        String location = mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload?mode=upsert&async=true").file("file", content))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.mode").value("UPSERT"))
+                .andReturn().getResponse().getHeader("Location");
+
+        JsonNode job = null;
+        for (int i = 0; i < 100; i++){
+            job = objectMapper.readTree(mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+            if (!"QUEUED".equals(job.get("status").asText()) && !"RUNNING".equals(job.get("status").asText())){
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals("COMPLETED", job.get("status").asText());
+        assertEquals(0, job.get("rowsInserted").asLong());
+        assertEquals(10, job.get("rowsUnchanged").asLong());
+    }
+
+    @Test
+    public void shouldFindNewRowInSearchIssuedRightAfterCommit() throws Exception {
+        this.shouldProcessFile();
+        Pageable pageable = new OffsetBasedPageRequest(0, 10, Sort.by("id"));
+        assertTrue(employeeService.getEmployees(0.0, 4000.0, null, null, "Longbottom", pageable).isEmpty());
+
+        List<String> found = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            CompletableFuture.supplyAsync(() -> employeeService.getEmployees(0.0, 4000.0, null, null, "Longbottom", pageable))
+                    .get().forEach(employee -> found.add(employee.getId()));
+            return null;
+        }).when(employeeSearchCache).onEmployeesChanged(any());
+
+        mockMvc.perform(post("/users").content("{\n" +
+                "    \"id\": \"emp0001\",\n" +
+                "    \"name\": \"Neville Longbottom\",\n" +
+                "    \"login\": \"nlongbottom\",\n" +
+                "    \"salary\": 1234.00,\n" +
+                "    \"startDate\": \"2001-11-16\"\n" +
+                "}").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andExpect(status().isCreated());
+
+        assertEquals(Collections.singletonList("emp0001"), found);
+    }
+
     private MockMultipartFile getFile(String filePath) throws URISyntaxException, IOException {
         Path path = Paths.get(ClassLoader.getSystemResource(filePath).toURI());
         byte[] content = Files.readAllBytes(path);
         return new MockMultipartFile("employees.csv", "employees.csv", "text/plain", content);
     }
 
+    @Test
+    public void shouldSkipUnchangedRowsOnReupload() throws Exception {
+        this.shouldProcessFile();
+        byte[] content = getFile("employees.csv").getBytes();
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload").file("file", content))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.skipped").value(10));
+
+        mockMvc.perform(put("/users").content("{\n" +
+                "    \"id\": \"e0001\",\n" +
+                "    \"name\": \"Harry James Potter\",\n" +
+                "    \"login\": \"hpotter\",\n" +
+                "    \"salary\": 1234.00,\n" +
+                "    \"startDate\": \"2001-11-16\"\n" +
+                "}").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload").file("file", content))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.skipped").value(9));
+        assertEquals("Harry Potter", employeeRepository.findById("e0001").orElseThrow(AssertionError::new).getName());
+    }
+
+    @Test
+    public void shouldUpsertFileIdempotently() throws Exception {
+        byte[] content = getFile("employees.csv").getBytes();
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload").file("file", content).param("mode", "upsert"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.inserted").value(10))
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.unchanged").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload").file("file", content).param("mode", "upsert"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.inserted").value(0))
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.unchanged").value(10))
+                .andExpect(jsonPath("$.skipped").value(10));
+
+        byte[] renamed = new String(content).replace("Harry Potter", "Harry James Potter").getBytes();
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload").file("file", renamed).param("mode", "upsert"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.unchanged").value(9));
+        assertEquals("Harry James Potter", employeeRepository.findById("e0001").orElseThrow(AssertionError::new).getName());
+        assertEquals(10, employeeRepository.count());
+    }
+
+    @Test
+    public void shouldProcessFileAsynchronously() throws Exception {
+        MockMultipartFile file = getFile("employees.csv");
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload")
+                .file("file", file.getBytes()).param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").exists())
+                .andReturn();
+        String location = result.getResponse().getHeader("Location");
+        String status = "QUEUED";
+        for (int i = 0; i < 100 && !"COMPLETED".equals(status) && !"FAILED".equals(status); i++){
+            Thread.sleep(50);
+            status = objectMapper.readTree(mockMvc.perform(get(location)).andReturn().getResponse().getContentAsString()).get("status").asText();
+        }
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.resultStatus").value(201))
+                .andExpect(jsonPath("$.message").value("Data is created"))
+                .andExpect(jsonPath("$.rowsParsed").value(10))
+                .andExpect(jsonPath("$.rowsWritten").value(10));
+        assertEquals(10, employeeRepository.findAll().size());
+    }
+
+    @Test
+    public void shouldOverwriteExistingEmployeesWhenProcessFile() throws Exception {
+        employeeRepository.save(new Employee("e0001",
+                "someone",
+                "Someone Else",
+                1.0,
+                LocalDate.parse("2001-11-16", DateTimeFormatter.ofPattern("yyyy-MM-dd"))));
+        this.shouldProcessFile();
+        Employee employee = employeeRepository.findById("e0001").orElseThrow(IllegalStateException::new);
+        assertEquals("hpotter", employee.getLogin());
+        assertEquals("Harry Potter", employee.getName());
+        assertEquals(1234.00, employee.getSalary());
+        assertEquals("2001-11-16", employee.getStartDate().toString());
+    }
+
     @Test
     public void shouldGetEmployeesWithSalaryRange() throws Exception {
         this.shouldProcessFile();
@@ -72,6 +221,104 @@ public class IntegrationTest {
         assertEquals(2, employees.getResult().size());
     }
 
+    @Test
+    public void shouldPublishUploadAndSearchMetrics() throws Exception {
+        this.shouldGetEmployeesWithSalaryRange();
+        mockMvc.perform(get("/actuator/metrics/hrapp.upload.stage").param("tag", "stage:write"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/hrapp.search").param("tag", "filters:none"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/hrapp.upload.rows").param("tag", "result:written"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldNotGetCachedSearchAfterChange() throws Exception {
+        this.shouldGetEmployeesWithSalaryRange();
+        mockMvc.perform(post("/users").content("{\n" +
+                "    \"id\": \"emp0001\",\n" +
+                "    \"name\": \"Ron Weasley\",\n" +
+                "    \"login\": \"ronwl\",\n" +
+                "    \"salary\": 1234.00,\n" +
+                "    \"startDate\": \"2001-11-16\"\n" +
+                "}").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andExpect(status().isCreated());
+        MvcResult result = mockMvc.perform(get("/users?maxSalary=4000&minSalary=1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        EmployeeResponse employees = objectMapper.readValue(result.getResponse().getContentAsString(), EmployeeResponse.class);
+        assertEquals(3, employees.getResult().size());
+    }
+
+    @Test
+    public void shouldCountEmployees() throws Exception {
+        this.shouldProcessFile();
+        mockMvc.perform(get("/users/count?maxSalary=4000&minSalary=1000"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"total\":2}"));
+        mockMvc.perform(get("/users/count?name=Harry"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"total\":1}"));
+    }
+
+    @Test
+    public void shouldExportEmployeesInUploadFormat() throws Exception {
+        this.shouldProcessFile();
+        MvcResult started = mockMvc.perform(get("/users/export?minSalary=1000&maxSalary=4000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String exported = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("id,login,name,salary,startDate", exported.split("\n")[0]);
+        assertEquals(3, exported.split("\n").length);
+
+        employeeRepository.deleteAll();
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload")
+                .file("file", exported.getBytes())).andExpect(status().isCreated());
+        assertEquals(2, employeeRepository.findAll().size());
+    }
+
+    @Test
+    public void shouldStreamEmployees() throws Exception {
+        this.shouldProcessFile();
+        MvcResult listed = mockMvc.perform(get("/users?maxSalary=4000&minSalary=1000&sort=name&order=DESC"))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult started = mockMvc.perform(get("/users?maxSalary=4000&minSalary=1000&sort=name&order=DESC&stream=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(listed.getResponse().getContentAsString(), streamed.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void shouldStreamEmployeesUpToLimit() throws Exception {
+        this.shouldProcessFile();
+        MvcResult listed = mockMvc.perform(get("/users?maxSalary=50000&offset=2&limit=3"))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult started = mockMvc.perform(get("/users?maxSalary=50000&offset=2&limit=3&stream=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(3, objectMapper.readValue(streamed.getResponse().getContentAsString(), EmployeeResponse.class).getResult().size());
+        assertEquals(listed.getResponse().getContentAsString(), streamed.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void shouldRejectCursorInStreamMode() throws Exception {
+        MvcResult started = mockMvc.perform(get("/users?cursor=&stream=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cursor cannot be used with stream"));
+    }
+
     @Test
     public void shouldGetEmployeesWithOffsetAndLimit() throws Exception {
         this.shouldProcessFile();
@@ -82,6 +329,32 @@ public class IntegrationTest {
         assertEquals(8, employees.getResult().size());
     }
 
+    @Test
+    public void shouldWalkEmployeesWithCursor() throws Exception {
+        this.shouldProcessFile();
+        for (String sort : new String[]{"id", "name", "login", "salary"}){
+            for (String order : new String[]{"ASC", "DESC"}){
+                MvcResult all = mockMvc.perform(get("/users?maxSalary=50000&sort=" + sort + "&order=" + order)).andReturn();
+                List<String> expected = new ArrayList<>();
+                objectMapper.readValue(all.getResponse().getContentAsString(), EmployeeResponse.class).getResult()
+                        .forEach(employee -> expected.add(employee.getId()));
+
+                List<String> walked = new ArrayList<>();
+                String cursor = "";
+                do {
+                    MvcResult page = mockMvc.perform(get("/users").param("maxSalary", "50000").param("limit", "3")
+                            .param("sort", sort).param("order", order).param("cursor", cursor))
+                            .andExpect(status().isOk())
+                            .andReturn();
+                    EmployeeResponse response = objectMapper.readValue(page.getResponse().getContentAsString(), EmployeeResponse.class);
+                    response.getResult().forEach(employee -> walked.add(employee.getId()));
+                    cursor = response.getNext();
+                } while (cursor != null);
+                assertEquals(expected, walked, sort + " " + order);
+            }
+        }
+    }
+
     @Test
     public void shouldGetEmployeesWithName() throws Exception {
         this.shouldProcessFile();
@@ -95,6 +368,23 @@ public class IntegrationTest {
         assertEquals("e0001", employee.getId());
     }
 
+    @Test
+    public void shouldGetEmployeesWithNameAfterUpdate() throws Exception {
+        this.shouldUpdateEmployee();
+        MvcResult result = mockMvc.perform(get("/users?name=Harry"))
+                .andExpect(status().isOk())
+                .andReturn();
+        EmployeeResponse employees = objectMapper.readValue(result.getResponse().getContentAsString(), EmployeeResponse.class);
+        assertEquals(1, employees.getResult().size());
+        assertEquals("emp0001", employees.getResult().get(0).getId());
+
+        result = mockMvc.perform(get("/users?name=Weasley"))
+                .andExpect(status().isOk())
+                .andReturn();
+        employees = objectMapper.readValue(result.getResponse().getContentAsString(), EmployeeResponse.class);
+        assertEquals(0, employees.getResult().size());
+    }
+
     @Test
     public void shouldGetEmployeesWithID() throws Exception {
         this.shouldProcessFile();
@@ -108,6 +398,21 @@ public class IntegrationTest {
         assertEquals("e0001", employee.getId());
     }
 
+    @Test
+    public void shouldGetEmployeesWithLogin() throws Exception {
+        this.shouldProcessFile();
+        MvcResult result =mockMvc.perform(get("/users?login=hpotter&minSalary=1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        EmployeeResponse employees = objectMapper.readValue(result.getResponse().getContentAsString(), EmployeeResponse.class);
+        assertEquals(1, employees.getResult().size());
+        assertEquals("e0001", employees.getResult().get(0).getId());
+        result =mockMvc.perform(get("/users?login=hpotter&minSalary=2000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(0, objectMapper.readValue(result.getResponse().getContentAsString(), EmployeeResponse.class).getResult().size());
+    }
+
     @Test
     public void shouldNotProcessFileWhenDuplicate() throws Exception {
         MockMultipartFile file = getFile("employees_duplicates.csv");
@@ -118,14 +423,29 @@ public class IntegrationTest {
     }
 
     @Test
-    public void shouldUploadButNotProcessFileWhenConstraintViolation() throws Exception {
+    public void shouldNotProcessFileWhenLoginDuplicate() throws Exception {
         MockMultipartFile file = getFile("employees_login_duplicates.csv");
         mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload")
-                .file("file", file.getBytes())).andExpect(status().isOk());
+                .file("file", file.getBytes())).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Login hpotter is duplicated"));
         List<Employee> employees = employeeRepository.findAll();
         assertEquals(0, employees.size());
     }
 
+    @Test
+    public void shouldUploadButNotProcessFileWhenConstraintViolation() throws Exception {
+        employeeRepository.save(new Employee("e1000",
+                "hpotter",
+                "Harry Potter",
+                1234.00,
+                LocalDate.parse("2001-11-16", DateTimeFormatter.ofPattern("yyyy-MM-dd"))));
+        MockMultipartFile file = getFile("employees.csv");
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload")
+                .file("file", file.getBytes())).andExpect(status().isOk());
+        List<Employee> employees = employeeRepository.findAll();
+        assertEquals(1, employees.size());
+    }
+
     @Test
     public void shouldNotProcessFileWhenSalaryLessThan0() throws Exception {
         MockMultipartFile file = getFile("employees_lesszero.csv");
@@ -176,6 +496,34 @@ public class IntegrationTest {
                 .andExpect(content().string("{\"id\":\"e0002\",\"login\":\"ronwl\",\"name\":\"Ron Weasley\",\"salary\":19234.5,\"startDate\":\"2001-11-16\"}"));
     }
 
+    @Test
+    public void shouldNotGetCachedEmployeeAfterChange() throws Exception {
+        this.shouldGetEmployee();
+        mockMvc.perform(put("/users").content("{\n" +
+                "    \"id\": \"e0002\",\n" +
+                "    \"name\": \"Ronald Weasley\",\n" +
+                "    \"login\": \"ronwl\",\n" +
+                "    \"salary\": 19234.50,\n" +
+                "    \"startDate\": \"2001-11-16\"\n" +
+                "}").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/e0002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Ronald Weasley"));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/users/upload")
+                .file("file", getFile("employees.csv").getBytes())).andExpect(status().isCreated());
+        mockMvc.perform(get("/users/e0002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Ron Weasley"));
+
+        mockMvc.perform(delete("/users/e0002")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/e0002"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "cache:employees").param("tag", "result:miss"))
+                .andExpect(status().isOk());
+    }
+
     @Test
     public void shouldCreateEmployee() throws Exception {
         mockMvc.perform(post("/users").content("{\n" +
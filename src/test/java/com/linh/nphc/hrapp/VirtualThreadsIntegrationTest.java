@@ -0,0 +1,114 @@
+package com.linh.nphc.hrapp;
+
+import com.linh.nphc.hrapp.models.UploadProgress;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Needs a Java version with virtual threads; skipped on older ones, where hrapp.threads.virtual refuses to start.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "hrapp.threads.virtual=true",
+        "hrapp.import.max-concurrent=2",
+        "hrapp.import.queue-capacity=4",
+        "hrapp.import.retry-after-seconds=30"
+})
+@EnabledIf("isVirtualThreadSupported")
+public class VirtualThreadsIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @MockBean
+    private EmployeeService employeeService;
+
+    @Test
+    public void shouldRejectUploadsBeyondTheImportBulkhead() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(30, TimeUnit.SECONDS))
+                .when(employeeService).processFile(any(InputStreamSource.class), any(UploadProgress.class));
+
+        int uploads = 8;
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < uploads; i++){
+                responses.add(executor.submit(() -> {
+                    ResponseEntity<String> response = this.upload();
+                    if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS){
+                        rejected.incrementAndGet();
+                    }
+                    return response;
+                }));
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(20);
+            while (rejected.get() < uploads - 6 && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            List<ResponseEntity<String>> finished = new ArrayList<>();
+            for (Future<ResponseEntity<String>> response : responses){
+                finished.add(response.get(30, TimeUnit.SECONDS));
+            }
+            Map<HttpStatus, Long> statuses = finished.stream()
+                    .collect(Collectors.groupingBy(ResponseEntity::getStatusCode, Collectors.counting()));
+            assertEquals(6L, statuses.get(HttpStatus.CREATED));
+            assertEquals(2L, statuses.get(HttpStatus.TOO_MANY_REQUESTS));
+            finished.stream().filter(response -> response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS)
+                    .forEach(response -> assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private ResponseEntity<String> upload(){
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource("id,login,name,salary,startDate\n".getBytes()){
+            @Override
+            public String getFilename(){
+                return "employees.csv";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity("/users/upload", new HttpEntity<>(body, headers), String.class);
+    }
+
+    static boolean isVirtualThreadSupported(){
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e){
+            return false;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.linh.nphc.hrapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsConfigurationTest {
+
+    private final VirtualThreadsConfiguration configuration = new VirtualThreadsConfiguration();
+
+    @Test
+    public void shouldKeepImportsAndReadsInSeparatePools(){
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter reads = configuration.readConcurrencyLimit(20).getFilter();
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter streams = configuration.streamConcurrencyLimit(4).getFilter();
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter imports = configuration.importConcurrencyLimit(2, 4, 30).getFilter();
+
+        MockHttpServletRequest upload = request("POST", "/users/upload", null);
+        assertTrue(reads.shouldNotFilter(upload));
+        assertFalse(imports.shouldNotFilter(upload));
+        assertFalse(imports.shouldNotFilter(request("POST", "/users/upload", "mode=upsert")));
+        assertFalse(imports.shouldNotFilter(request("POST", "/users/import", null)));
+
+        MockHttpServletRequest job = request("POST", "/users/upload", "async=true");
+        assertTrue(reads.shouldNotFilter(job));
+        assertTrue(imports.shouldNotFilter(job));
+        assertTrue(reads.shouldNotFilter(request("GET", "/users/upload/42", null)));
+
+        assertFalse(reads.shouldNotFilter(request("GET", "/users/e0001", null)));
+        assertFalse(reads.shouldNotFilter(request("GET", "/users", "minSalary=0")));
+        assertTrue(streams.shouldNotFilter(request("GET", "/users", "minSalary=0")));
+        assertTrue(imports.shouldNotFilter(request("GET", "/users", "minSalary=0")));
+    }
+
+    @Test
+    public void shouldKeepStreamsOffTheReadPermits(){
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter reads = configuration.readConcurrencyLimit(20).getFilter();
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter streams = configuration.streamConcurrencyLimit(4).getFilter();
+
+        MockHttpServletRequest export = request("GET", "/users/export", null);
+        assertTrue(reads.shouldNotFilter(export));
+        assertFalse(streams.shouldNotFilter(export));
+
+        MockHttpServletRequest stream = request("GET", "/users", "minSalary=0&stream=true");
+        assertTrue(reads.shouldNotFilter(stream));
+        assertFalse(streams.shouldNotFilter(stream));
+    }
+
+    @Test
+    public void shouldRejectImportsOnceTheBulkheadIsFull() throws Exception {
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter imports = configuration.importConcurrencyLimit(1, 0, 30).getFilter();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        imports.doFilter(request("POST", "/users/upload", null), new MockHttpServletResponse(), (request, response) ->
+                imports.doFilter(request("POST", "/users/import", "path=employees.csv"), rejected, (inner, innerResponse) -> fail()));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Too many uploads in progress"));
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        imports.doFilter(request("POST", "/users/upload", null), admitted, (request, response) -> {});
+        assertEquals(200, admitted.getStatus());
+    }
+
+    @Test
+    public void shouldReleasePermitWhenRequestEnds() throws Exception {
+        Semaphore permits = new Semaphore(1);
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter filter = new VirtualThreadsConfiguration.ConcurrencyLimitFilter(
+                permits, request -> true);
+        filter.doFilter(request("GET", "/users", null), new MockHttpServletResponse(),
+                (request, response) -> assertEquals(0, permits.availablePermits()));
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    public void shouldHoldPermitUntilAsyncResponseCompletes() throws Exception {
+        Semaphore permits = new Semaphore(1);
+        VirtualThreadsConfiguration.ConcurrencyLimitFilter filter = new VirtualThreadsConfiguration.ConcurrencyLimitFilter(
+                permits, request -> true);
+        MockHttpServletRequest export = request("GET", "/users/export", null);
+        export.setAsyncSupported(true);
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        assertEquals(0, permits.availablePermits());
+
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        assertEquals(1, permits.availablePermits());
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String query){
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setQueryString(query);
+        return request;
+    }
+}
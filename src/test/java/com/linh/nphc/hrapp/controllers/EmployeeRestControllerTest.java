@@ -1,9 +1,13 @@
 package com.linh.nphc.hrapp.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import com.linh.nphc.hrapp.models.CountResponse;
 import com.linh.nphc.hrapp.models.Employee;
 import com.linh.nphc.hrapp.models.EmployeeDTO;
 import com.linh.nphc.hrapp.models.EmployeeResponse;
+import com.linh.nphc.hrapp.models.KeysetCursor;
 import com.linh.nphc.hrapp.models.MessageResponse;
 import com.linh.nphc.hrapp.services.EmployeeService;
 import org.junit.jupiter.api.BeforeAll;
@@ -14,17 +18,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.quality.Strictness;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,9 +47,17 @@ class EmployeeRestControllerTest {
     @Mock
     private EmployeeService employeeService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
     @InjectMocks
     private EmployeeRestController employeeRestController;
 
+    @BeforeEach
+    public void setUp(){
+        ReflectionTestUtils.setField(employeeRestController, "maxPageSize", 1000);
+    }
+
     @Test
     public void shouldReturnSuccess(){
         when(employeeService.getEmployees(anyDouble(), anyDouble(), anyString(), anyString(), anyString(), any(Pageable.class))).thenReturn(new ArrayList<>());
@@ -125,6 +145,43 @@ class EmployeeRestControllerTest {
         assertEquals("Limit must be greater than 0", ((MessageResponse) Objects.requireNonNull(responseEntity.getBody())).getMessage());
     }
 
+    @Test
+    public void shouldReturnBadRequestWhenLimitGreaterThanMaxPageSize(){
+        ResponseEntity<Object> responseEntity = employeeRestController.getEmployees(100.0,
+                5000.0,
+                "e00001",
+                "login",
+                "name",
+                0,
+                1001,
+                "name",
+                "ASC");
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Limit cannot be greater than 1000", ((MessageResponse) Objects.requireNonNull(responseEntity.getBody())).getMessage());
+        verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    public void shouldUseMaxPageSizeWhenLimitOmitted(){
+        when(employeeService.getEmployees(anyDouble(), anyDouble(), isNull(), isNull(), isNull(), any(Pageable.class))).thenReturn(new ArrayList<>());
+        employeeRestController.getEmployees(0.0, 4000.0, null, null, null, 0, null, "id", "ASC");
+        verify(employeeService).getEmployees(anyDouble(), anyDouble(), isNull(), isNull(), isNull(), argThat(pageable -> pageable.getPageSize() == 1000));
+    }
+
+    @Test
+    public void shouldCountEmployees(){
+        when(employeeService.countEmployees(1000.0, 4000.0, null, null, "Harry")).thenReturn(42L);
+        ResponseEntity<Object> responseEntity = employeeRestController.countEmployees(1000.0, 4000.0, null, null, "Harry");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(42L, ((CountResponse) Objects.requireNonNull(responseEntity.getBody())).getTotal());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenCountRequestInvalid(){
+        ResponseEntity<Object> responseEntity = employeeRestController.countEmployees(4000.0, 1000.0, null, null, null);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+
     @Test
     public void shouldReturnBadRequestWhenSortNotValid(){
         ResponseEntity<Object> responseEntity = employeeRestController.getEmployees(100.0,
@@ -338,4 +395,81 @@ class EmployeeRestControllerTest {
         assertEquals("Some error", Objects.requireNonNull(responseEntity.getBody()).getMessage());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldReturnNextCursorWhenPageFull(){
+        Employee employee = new Employee("e0002", "ronwl", "Ron Weasley", 19234.50, LocalDate.parse("2001-11-16", DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+        when(employeeService.getEmployeesAfter(anyDouble(), anyDouble(), isNull(), isNull(), isNull(), eq("name"), eq(Sort.Direction.ASC), isNull(), eq(1)))
+                .thenReturn(Collections.singletonList(employee));
+        ResponseEntity<Object> responseEntity = employeeRestController.getEmployeesByCursor(0.0, 4000.0, null, null, null, 1, "name", "ASC", "");
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        KeysetCursor next = KeysetCursor.decode(((EmployeeResponse) Objects.requireNonNull(responseEntity.getBody())).getNext());
+        assertEquals("Ron Weasley", next.getValue());
+        assertEquals("e0002", next.getId());
+    }
+
+    @Test
+    public void shouldNotReturnNextCursorOnLastPage(){
+        when(employeeService.getEmployeesAfter(anyDouble(), anyDouble(), isNull(), isNull(), isNull(), anyString(), any(Sort.Direction.class), any(KeysetCursor.class), anyInt()))
+                .thenReturn(new ArrayList<>());
+        String cursor = new KeysetCursor("id", Sort.Direction.ASC, "e0002", "e0002").encode();
+        ResponseEntity<Object> responseEntity = employeeRestController.getEmployeesByCursor(0.0, 4000.0, null, null, null, 10, "id", "ASC", cursor);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertNull(((EmployeeResponse) Objects.requireNonNull(responseEntity.getBody())).getNext());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenCursorDoesNotMatchSort(){
+        String cursor = new KeysetCursor("id", Sort.Direction.ASC, "e0002", "e0002").encode();
+        ResponseEntity<Object> responseEntity = employeeRestController.getEmployeesByCursor(0.0, 4000.0, null, null, null, 10, "name", "ASC", cursor);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Invalid cursor", ((MessageResponse) Objects.requireNonNull(responseEntity.getBody())).getMessage());
+    }
+
+    @Test
+    public void shouldStreamEmployees() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(8);
+            consumer.accept(new Employee("e0001", "hpotter", "Harry Potter", 1234.0, LocalDate.of(2001, 11, 16)));
+            consumer.accept(new Employee("e0002", "ronwl", "Ron Weasley", 19234.5, LocalDate.of(2001, 11, 16)));
+            return null;
+        }).when(employeeService).streamEmployees(anyDouble(), anyDouble(), isNull(), isNull(), isNull(), any(Sort.class), anyLong(), isNull(), any());
+        ResponseEntity<StreamingResponseBody> responseEntity = employeeRestController.streamEmployees(0.0, 4000.0, null, null, null, 0, null, "id", "ASC", null);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(out);
+        EmployeeResponse response = objectMapper.readValue(out.toByteArray(), EmployeeResponse.class);
+        assertEquals(2, response.getResult().size());
+        assertEquals("Ron Weasley", response.getResult().get(1).getName());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenStreamRequestInvalid() throws IOException {
+        ResponseEntity<StreamingResponseBody> responseEntity = employeeRestController.streamEmployees(0.0, 4000.0, null, null, null, 0, null, "age", "ASC", null);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(out);
+        assertEquals("Invalid sorting", objectMapper.readTree(out.toByteArray()).get("message").asText());
+        verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    public void shouldPassLimitToStream() throws IOException {
+        ResponseEntity<StreamingResponseBody> responseEntity = employeeRestController.streamEmployees(0.0, 4000.0, null, null, null, 0, 5000, "id", "ASC", null);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(new ByteArrayOutputStream());
+        verify(employeeService).streamEmployees(anyDouble(), anyDouble(), isNull(), isNull(), isNull(), any(Sort.class), anyLong(), eq(5000), any());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenStreamGivenCursorOrNegativeLimit() throws IOException {
+        ResponseEntity<StreamingResponseBody> cursor = employeeRestController.streamEmployees(0.0, 4000.0, null, null, null, 0, null, "id", "ASC", "");
+        assertEquals(HttpStatus.BAD_REQUEST, cursor.getStatusCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(cursor.getBody()).writeTo(out);
+        assertEquals("Cursor cannot be used with stream", objectMapper.readTree(out.toByteArray()).get("message").asText());
+
+        ResponseEntity<StreamingResponseBody> limit = employeeRestController.streamEmployees(0.0, 4000.0, null, null, null, 0, -1, "id", "ASC", null);
+        assertEquals(HttpStatus.BAD_REQUEST, limit.getStatusCode());
+        verifyNoInteractions(employeeService);
+    }
+}
@@ -0,0 +1,84 @@
+package com.linh.nphc.hrapp.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linh.nphc.hrapp.services.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportRestControllerTest {
+
+    private static final String EXPORTED = "id,login,name,salary,startDate\n" +
+            "e0001,hpotter,Harry Potter,1234.0,2001-11-16\n" +
+            "e0002,ronwl,\"Weasley, Ron\",19234.5,2001-11-16\n";
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Spy
+    private ObjectMapper objectMapper;
+
+    @InjectMocks
+    private ExportRestController exportRestController;
+
+    @Test
+    public void shouldExportCsv() throws IOException {
+        this.mockRows();
+        ResponseEntity<StreamingResponseBody> responseEntity = exportRestController.export(null, null, null, null, false);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("text/csv", Objects.requireNonNull(responseEntity.getHeaders().getContentType()).toString());
+        assertEquals(EXPORTED, new String(this.write(responseEntity), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldExportGzippedCsv() throws IOException {
+        this.mockRows();
+        ResponseEntity<StreamingResponseBody> responseEntity = exportRestController.export(null, null, null, null, true);
+        assertEquals("application/gzip", Objects.requireNonNull(responseEntity.getHeaders().getContentType()).toString());
+        byte[] csv = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(this.write(responseEntity))));
+        assertEquals(EXPORTED, new String(csv, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenMaxLessThanMinSalary() throws IOException {
+        ResponseEntity<StreamingResponseBody> responseEntity = exportRestController.export(4000.0, 1000.0, null, null, false);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Max salary cannot be less than min salary",
+                objectMapper.readTree(this.write(responseEntity)).get("message").asText());
+        verifyNoInteractions(employeeService);
+    }
+
+    private void mockRows(){
+        doAnswer(invocation -> {
+            Consumer<String[]> consumer = invocation.getArgument(4);
+            consumer.accept(new String[]{"e0001", "hpotter", "Harry Potter", "1234.0", "2001-11-16"});
+            consumer.accept(new String[]{"e0002", "ronwl", "Weasley, Ron", "19234.5", "2001-11-16"});
+            return null;
+        }).when(employeeService).exportEmployees(isNull(), isNull(), isNull(), isNull(), any());
+    }
+
+    private byte[] write(ResponseEntity<StreamingResponseBody> responseEntity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(responseEntity.getBody()).writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -1,17 +1,34 @@
 package com.linh.nphc.hrapp.controllers;
 
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
 import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
 import com.linh.nphc.hrapp.exceptions.UnableToSaveEmployeeException;
+import com.linh.nphc.hrapp.exceptions.UploadRejectedException;
+import com.linh.nphc.hrapp.models.MessageResponse;
+import com.linh.nphc.hrapp.models.UploadJob;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import com.linh.nphc.hrapp.models.UploadResponse;
 import com.linh.nphc.hrapp.services.EmployeeService;
+import com.linh.nphc.hrapp.services.ImportBulkhead;
+import com.linh.nphc.hrapp.services.UploadJobService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,25 +38,112 @@ public class UploadRestControllerTest {
     @Mock
     private EmployeeService employeeService;
 
+    @Mock
+    private UploadJobService uploadJobService;
+
+    @Spy
+    private ImportBulkhead importBulkhead = new ImportBulkhead(2, 4);
+
     @InjectMocks
     private UploadRestController uploadRestController;
 
     @Test
     public void shouldReturn201WhenDataCreated(){
-        doNothing().when(employeeService).processFile(any(MultipartFile.class));
-        assertEquals(HttpStatus.CREATED, uploadRestController.upload(new MockMultipartFile("EmployeeFile.csv", new byte[]{})).getStatusCode());
+        doAnswer(invocation -> {
+            invocation.getArgument(1, UploadProgress.class).rowsSkipped(4);
+            return null;
+        }).when(employeeService).processFile(any(MultipartFile.class), any(UploadProgress.class));
+        ResponseEntity<MessageResponse> responseEntity = uploadRestController.upload(new MockMultipartFile("EmployeeFile.csv", new byte[]{}));
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        UploadResponse response = (UploadResponse) Objects.requireNonNull(responseEntity.getBody());
+        assertEquals(4, response.getSkipped());
+        assertNull(response.getInserted());
     }
 
     @Test
     public void shouldReturn200WhenUploadedButDataNotCreated(){
-        doThrow(new UnableToSaveEmployeeException("Unable to save employee due to constraint violation")).when(employeeService).processFile(any(MultipartFile.class));
+        doThrow(new UnableToSaveEmployeeException("Unable to save employee due to constraint violation")).when(employeeService).processFile(any(MultipartFile.class), any(UploadProgress.class));
         assertEquals(HttpStatus.OK, uploadRestController.upload(new MockMultipartFile("EmployeeFile.csv", new byte[]{})).getStatusCode());
     }
 
     @Test
     public void shouldReturn400WhenFileInvalid(){
-        doThrow(new UnableToReadFileException("Unable to read file EmployeeFile.csv")).when(employeeService).processFile(any(MultipartFile.class));
+        doThrow(new UnableToReadFileException("Unable to read file EmployeeFile.csv")).when(employeeService).processFile(any(MultipartFile.class), any(UploadProgress.class));
         assertEquals(HttpStatus.BAD_REQUEST, uploadRestController.upload(new MockMultipartFile("EmployeeFile.csv", new byte[]{})).getStatusCode());
     }
 
+    @Test
+    public void shouldImportFileFromPath(){
+        assertEquals(HttpStatus.CREATED, uploadRestController.importPath("employees.csv").getStatusCode());
+        verify(employeeService).importPath(eq("employees.csv"), any(UploadProgress.class));
+        doThrow(new InvalidFieldException("Import from path is disabled")).when(employeeService).importPath(anyString(), any(UploadProgress.class));
+        ResponseEntity<MessageResponse> responseEntity = uploadRestController.importPath("../etc/passwd");
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Import from path is disabled", Objects.requireNonNull(responseEntity.getBody()).getMessage());
+    }
+
+    @Test
+    public void shouldReturnCountsWhenUpserted(){
+        doAnswer(invocation -> {
+            invocation.getArgument(1, UploadProgress.class).rowsMerged(2, 1, 3);
+            return null;
+        }).when(employeeService).upsertFile(any(MultipartFile.class), any(UploadProgress.class));
+        ResponseEntity<MessageResponse> responseEntity = uploadRestController.upsert(new MockMultipartFile("EmployeeFile.csv", new byte[]{}));
+        assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
+        UploadResponse response = (UploadResponse) Objects.requireNonNull(responseEntity.getBody());
+        assertEquals(Long.valueOf(2), response.getInserted());
+        assertEquals(Long.valueOf(1), response.getUpdated());
+        assertEquals(Long.valueOf(3), response.getUnchanged());
+        assertEquals(0, response.getSkipped());
+    }
+
+    @Test
+    public void shouldReturn200WhenUpsertViolatesConstraint(){
+        doThrow(new DataIntegrityViolationException("Unique index or primary key violation")).when(employeeService)
+                .upsertFile(any(MultipartFile.class), any(UploadProgress.class));
+        assertEquals(HttpStatus.OK, uploadRestController.upsert(new MockMultipartFile("EmployeeFile.csv", new byte[]{})).getStatusCode());
+    }
+
+    @Test
+    public void shouldReturn202WhenUploadJobSubmitted(){
+        when(uploadJobService.submit(any(Path.class), eq(UploadJob.Mode.INSERT))).thenReturn(new UploadJob("job-1", UploadJob.Mode.INSERT));
+        ResponseEntity<Object> responseEntity = uploadRestController.uploadAsync(new MockMultipartFile("EmployeeFile.csv", new byte[]{}), null);
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertEquals("/users/upload/job-1", Objects.requireNonNull(responseEntity.getHeaders().getLocation()).toString());
+        assertEquals("job-1", ((UploadJob) Objects.requireNonNull(responseEntity.getBody())).getJobId());
+    }
+
+    @Test
+    public void shouldSubmitUpsertJobWhenAsyncUploadIsInUpsertMode(){
+        when(uploadJobService.submit(any(Path.class), eq(UploadJob.Mode.UPSERT))).thenReturn(new UploadJob("job-1", UploadJob.Mode.UPSERT));
+        ResponseEntity<Object> responseEntity = uploadRestController.uploadAsync(new MockMultipartFile("EmployeeFile.csv", new byte[]{}), "upsert");
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertEquals(UploadJob.Mode.UPSERT, ((UploadJob) Objects.requireNonNull(responseEntity.getBody())).getMode());
+    }
+
+    @Test
+    public void shouldReturn429WhenUploadJobRejected(){
+        ReflectionTestUtils.setField(uploadRestController, "retryAfterSeconds", 30L);
+        when(uploadJobService.submit(any(Path.class), any(UploadJob.Mode.class))).thenThrow(new UploadRejectedException("Too many uploads in progress, please try again later"));
+        ResponseEntity<Object> responseEntity = uploadRestController.uploadAsync(new MockMultipartFile("EmployeeFile.csv", new byte[]{}), null);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
+        assertEquals("30", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void shouldReturn429WhenImportBulkheadFull(){
+        ReflectionTestUtils.setField(uploadRestController, "retryAfterSeconds", 30L);
+        ReflectionTestUtils.setField(uploadRestController, "importBulkhead", new ImportBulkhead(0, 0));
+        ResponseEntity<MessageResponse> responseEntity = uploadRestController.upload(new MockMultipartFile("EmployeeFile.csv", new byte[]{}));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
+        assertEquals("30", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    public void shouldReturn404WhenUploadJobNotExist(){
+        when(uploadJobService.getJob(anyString())).thenReturn(Optional.empty());
+        assertEquals(HttpStatus.NOT_FOUND, uploadRestController.getUploadJob("job-1").getStatusCode());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.linh.nphc.hrapp.models;
+
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetCursorTest {
+
+    private final Employee employee = new Employee("e0001", "hpotter", "Harry Potter", 1234.5, LocalDate.of(2001, 11, 16));
+
+    @Test
+    public void shouldEncodeAndDecodeStringSortValue(){
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.after(employee, "name", Sort.Direction.DESC).encode());
+        assertEquals("name", cursor.getSort());
+        assertEquals(Sort.Direction.DESC, cursor.getDirection());
+        assertEquals("Harry Potter", cursor.getValue());
+        assertEquals("e0001", cursor.getId());
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeSalarySortValue(){
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.after(employee, "salary", Sort.Direction.ASC).encode());
+        assertEquals(1234.5, cursor.getValue());
+        assertEquals("e0001", cursor.getId());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenCursorInvalid(){
+        assertThrows(InvalidFieldException.class, () -> KeysetCursor.decode("not a cursor"));
+        assertThrows(InvalidFieldException.class, () -> KeysetCursor.decode("AAAA"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.linh.nphc.hrapp.repositories;
+
+import com.linh.nphc.hrapp.models.KeysetCursor;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fails when a search query stops using an index and falls back to scanning the employee table.
+ * Explains the exact SQL Hibernate generates for the repository methods.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.linh.nphc.hrapp.repositories.RecordingStatementInspector"
+})
+public class EmployeeQueryPlanTest {
+
+    private static final Pattern INDEX_LOOKUP = Pattern.compile("/\\* PUBLIC\\.[A-Z0-9_]+: ");
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp(){
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    public void shouldSearchBySalaryRangeUsingIndex(){
+        for (String sort : new String[]{"id", "name", "login", "salary"}){
+            for (Sort.Direction direction : Sort.Direction.values()){
+                employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(0.0, 4000.0, null, null, null,
+                        new OffsetBasedPageRequest(20, 10, Sort.by(direction, sort)));
+                this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSeekUsingIndex(){
+        for (String sort : new String[]{"id", "name", "login", "salary"}){
+            for (Sort.Direction direction : Sort.Direction.values()){
+                Object value = "salary".equals(sort) ? (Object) 100.0 : "e0001";
+                employeeRepository.findEmployeesAfter(0.0, 4000.0, null, null, null, sort, direction,
+                        new KeysetCursor(sort, direction, value, "e0001"), 10);
+                this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+            }
+        }
+    }
+
+    @Test
+    public void shouldSearchByIdUsingPrimaryKey(){
+        employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(0.0, 4000.0, "e0001", null, "Harry",
+                new OffsetBasedPageRequest(0, 10, Sort.by(Sort.Direction.ASC, "name")));
+        String plan = this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+        assertTrue(plan.matches("(?s).*/\\* PUBLIC\\.PRIMARY_KEY_[0-9A-Z]+: ID = .*"), plan);
+        assertFalse(plan.contains("ORDER BY"), plan);
+    }
+
+    @Test
+    public void shouldSearchByLoginUsingUniqueIndex(){
+        employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(0.0, 4000.0, null, "hpotter", null,
+                new OffsetBasedPageRequest(0, 10, Sort.by(Sort.Direction.ASC, "salary")));
+        String plan = this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+        assertTrue(plan.matches("(?s).*/\\* PUBLIC\\.[0-9A-Z_]+: LOGIN = .*"), plan);
+    }
+
+    @Test
+    public void shouldOnlyEmitSuppliedFilters(){
+        employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(0.0, 4000.0, null, null, null,
+                new OffsetBasedPageRequest(0, 10, Sort.by(Sort.Direction.ASC, "id")));
+        String sql = RecordingStatementInspector.lastSelect();
+        assertFalse(sql.contains(" is null"), sql);
+        assertFalse(sql.contains(" like "), sql);
+    }
+
+    @Test
+    public void shouldCountBySalaryRangeUsingIndex(){
+        employeeRepository.countEmployees(1000.0, 4000.0, null, null, null, null);
+        String plan = this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+        assertTrue(plan.contains("IDX_EMPLOYEE_SALARY_ID"), plan);
+    }
+
+    @Test
+    public void shouldFindByIdAndLoginUsingIndex(){
+        employeeRepository.findByLogin("hpotter");
+        this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+        employeeRepository.findById("e0001");
+        this.assertIndexLookup(RecordingStatementInspector.lastSelect());
+    }
+
+    private String assertIndexLookup(String sql){
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(INDEX_LOOKUP.matcher(plan).find(), plan);
+        return plan;
+    }
+}
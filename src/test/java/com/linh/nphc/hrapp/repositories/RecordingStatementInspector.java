@@ -0,0 +1,33 @@
+package com.linh.nphc.hrapp.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the SQL Hibernate generates so tests can look at its query plan.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear(){
+        STATEMENTS.clear();
+    }
+
+    public static String lastSelect(){
+        for (int i = STATEMENTS.size() - 1; i >= 0; i--){
+            if (STATEMENTS.get(i).startsWith("select")){
+                return STATEMENTS.get(i);
+            }
+        }
+        throw new IllegalStateException("No select statement recorded");
+    }
+}
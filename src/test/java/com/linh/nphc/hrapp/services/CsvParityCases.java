@@ -0,0 +1,74 @@
+package com.linh.nphc.hrapp.services;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upload files that {@link EmployeeCsvTokenizer} and {@link MappedCsvReader} must read the way the CSVReader
+ * upload path does, shared so that the two readers cannot drift apart.
+ */
+final class CsvParityCases {
+
+    static final String HEADER = "id,login,name,salary,startDate\n";
+
+    /**
+     * Files CSVReader reads, by what they exercise.
+     */
+    static final Map<String, String> READABLE;
+
+    /**
+     * Files CSVReader refuses, by what they exercise.
+     */
+    static final Map<String, String> MALFORMED;
+
+    static {
+        Map<String, String> readable = new LinkedHashMap<>();
+        readable.put("plain fields", HEADER + "e0001,hpotter,Harry Potter,1234.5,2001-11-16\n");
+        readable.put("quoted fields with separators and doubled quotes",
+                HEADER + "\"e0001\",\"hpotter\",\"Potter, \"\"Harry\"\"\",\"1234.5\",\"2001-11-16\"\r\n");
+        readable.put("backslashes outside quotes",
+                HEADER + "e0001,l1,C:\\dir\\x,1,2001-11-16\ne0002,l2,a\\\\b,2,2001-11-16\ne0003,l3,\\,3,2001-11-16\n");
+        readable.put("escaped quotes and backslashes inside quotes",
+                HEADER + "e0001,l1,\"say \\\"hi\\\", bye\",1,2001-11-16\ne0002,l2,\"a\\\\b\\c\",2,2001-11-16\n");
+        readable.put("characters after the closing quote", HEADER + "e0001,l1,\"Harry\" Potter,1,2001-11-16\n");
+        readable.put("line break inside quotes", HEADER + "e0001,l1,\"Harry\nPotter\",1,2001-11-16\n");
+        readable.put("empty and blank fields", HEADER + "e0001,l1,,,\ne0002,l2,\"\",\" \",\"\"\n");
+        readable.put("no line break at the end", HEADER + "e0001,l1,Harry Potter,1,2001-11-16");
+        readable.put("multi-byte characters", HEADER + "e0001,l1,Zoë Ærø 日本,1,2001-11-16\n");
+        READABLE = Collections.unmodifiableMap(readable);
+
+        Map<String, String> malformed = new LinkedHashMap<>();
+        malformed.put("quote left open at the end of the file", HEADER + "e0001,l1,\"Harry,1,2001-11-16\n");
+        malformed.put("escaped closing quote at the end of the file", HEADER + "e0001,l1,\"Harry\\\",1,2001-11-16\n");
+        MALFORMED = Collections.unmodifiableMap(malformed);
+    }
+
+    private CsvParityCases(){}
+
+    /**
+     * @return the rows CSVReader reads with the settings of the upload path
+     */
+    static List<String[]> readWithCsvReader(String content) throws IOException, CsvValidationException {
+        List<String[]> rows = new ArrayList<>();
+        try (CSVReader csvReader = new CSVReaderBuilder(new StringReader(content))
+                .withSkipLines(1)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.BOTH)
+                .build()){
+            String[] row;
+            while ((row = csvReader.readNext()) != null){
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
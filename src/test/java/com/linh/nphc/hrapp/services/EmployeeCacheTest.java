@@ -0,0 +1,58 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeCacheTest {
+
+    private final EmployeeCache employeeCache = new EmployeeCache(2);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void shouldLoadOnceAndCountHits(){
+        Function<String, Employee> loader = this.loader("Harry Potter");
+        assertEquals("Harry Potter", employeeCache.get("e0001", loader).getName());
+        assertEquals("Harry Potter", employeeCache.get("e0001", loader).getName());
+        assertEquals(1, loads.get());
+        assertEquals(1, employeeCache.stats().hitCount());
+        assertEquals(1, employeeCache.stats().missCount());
+    }
+
+    @Test
+    public void shouldNotCacheMissingEmployee(){
+        employeeCache.get("e0001", id -> null);
+        assertEquals("Harry Potter", employeeCache.get("e0001", this.loader("Harry Potter")).getName());
+    }
+
+    @Test
+    public void shouldReloadChangedAndDeletedEmployees(){
+        employeeCache.get("e0001", this.loader("Harry Potter"));
+        employeeCache.get("e0002", this.loader("Ron Weasley"));
+
+        employeeCache.onEmployeesChanged(new EmployeesChangedEvent(new HashSet<>(Arrays.asList("e0001", "e0002")), false));
+
+        assertEquals("Harry James Potter", employeeCache.get("e0001", this.loader("Harry James Potter")).getName());
+        assertNull(employeeCache.get("e0002", id -> null));
+        assertEquals(3, loads.get());
+    }
+
+    private Function<String, Employee> loader(String name){
+        return id -> {
+            loads.incrementAndGet();
+            return employee(id, name);
+        };
+    }
+
+    private static Employee employee(String id, String name){
+        return new Employee(id, id, name, 1000.0, LocalDate.of(2001, 11, 16));
+    }
+}
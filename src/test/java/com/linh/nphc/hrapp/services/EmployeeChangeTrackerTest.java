@@ -0,0 +1,127 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeChangeTrackerTest {
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @InjectMocks
+    private EmployeeChangeTracker employeeChangeTracker;
+
+    @BeforeEach
+    public void setUp(){
+        ReflectionTestUtils.setField(employeeChangeTracker, "maxTrackedIds", 10);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        TransactionSynchronizationManager.unbindResourceIfPossible(employeeChangeTracker);
+        if (TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldPublishImmediatelyWithoutTransaction(){
+        employeeChangeTracker.changed("e0001");
+        ArgumentCaptor<EmployeesChangedEvent> event = ArgumentCaptor.forClass(EmployeesChangedEvent.class);
+        verify(publisher).publishEvent(event.capture());
+        assertEquals(Collections.singleton("e0001"), event.getValue().getIds());
+        assertFalse(event.getValue().isFullReload());
+    }
+
+    @Test
+    public void shouldPublishOnceAfterCommit(){
+        TransactionSynchronizationManager.initSynchronization();
+        employeeChangeTracker.changed("e0001");
+        employeeChangeTracker.changed("e0002");
+        employeeChangeTracker.changed("e0002");
+        verify(publisher, never()).publishEvent(any());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        ArgumentCaptor<EmployeesChangedEvent> event = ArgumentCaptor.forClass(EmployeesChangedEvent.class);
+        verify(publisher).publishEvent(event.capture());
+        assertEquals(new HashSet<>(Arrays.asList("e0001", "e0002")), event.getValue().getIds());
+        assertNull(TransactionSynchronizationManager.getResource(employeeChangeTracker));
+    }
+
+    @Test
+    public void shouldAskForFullReloadPastTrackedIds(){
+        ReflectionTestUtils.setField(employeeChangeTracker, "maxTrackedIds", 2);
+        TransactionSynchronizationManager.initSynchronization();
+        employeeChangeTracker.changed("e0001");
+        employeeChangeTracker.changed("e0002");
+        employeeChangeTracker.changed("e0003");
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        ArgumentCaptor<EmployeesChangedEvent> event = ArgumentCaptor.forClass(EmployeesChangedEvent.class);
+        verify(publisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isFullReload());
+        assertTrue(event.getValue().getIds().isEmpty());
+    }
+
+    @Test
+    public void shouldNotPublishAfterRollback(){
+        TransactionSynchronizationManager.initSynchronization();
+        employeeChangeTracker.changed("e0001");
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(publisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void shouldReportChangesOfOtherTransactionsUntilTheyComplete() throws InterruptedException {
+        CountDownLatch changed = new CountDownLatch(1);
+        CountDownLatch complete = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                employeeChangeTracker.changed("e0001");
+                changed.countDown();
+                complete.await();
+                TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        other.start();
+        changed.await();
+
+        TransactionSynchronizationManager.initSynchronization();
+        employeeChangeTracker.changed("e0002");
+        assertTrue(employeeChangeTracker.hasConcurrentChanges());
+
+        complete.countDown();
+        other.join();
+        assertFalse(employeeChangeTracker.hasConcurrentChanges());
+    }
+}
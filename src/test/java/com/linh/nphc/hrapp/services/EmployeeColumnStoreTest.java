@@ -0,0 +1,112 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeeDTO;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the column store against the JPA search it stands in for, after uploads and single changes.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:columnstore",
+        "hrapp.search.column-store.enabled=true"
+})
+public class EmployeeColumnStoreTest {
+
+    private static final int EMPLOYEES = 300;
+
+    @Autowired
+    private EmployeeColumnStore employeeColumnStore;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @BeforeEach
+    public void setUp(){
+        StringBuilder csv = new StringBuilder("id,login,name,salary,startDate\n");
+        for (int i = 0; i < EMPLOYEES; i++){
+            // Few distinct salaries and names so that ties have to be broken by id
+            csv.append(String.format("e%04d,login%d,%s %d,%d.5,2001-11-%02d%n", (i * 7919) % EMPLOYEES, i,
+                    i % 3 == 0 ? "Harry" : i % 3 == 1 ? "harry" : "Ron", i % 11, (i % 17) * 250, i % 28 + 1));
+        }
+        employeeService.processFile(new MockMultipartFile("employees.csv", csv.toString().getBytes()));
+    }
+
+    @AfterEach
+    public void tearDown(){
+        employeeRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldReturnSamePagesAsDatabase(){
+        this.assertSameAsDatabase();
+    }
+
+    @Test
+    public void shouldFollowChangesAndReload(){
+        employeeService.createEmployee(new EmployeeDTO("e9999", "newlogin", "Harry 99", 1000.5, "2001-11-16"));
+        String login = employeeRepository.findById("e0001").map(Employee::getLogin).orElse(null);
+        employeeService.updateEmployee(new EmployeeDTO("e0001", login, "Ron 1", 1000.5, "2001-11-17"));
+        employeeService.deleteEmployee("e0002");
+        this.assertSameAsDatabase();
+
+        employeeColumnStore.load();
+        this.assertSameAsDatabase();
+    }
+
+    @Test
+    public void shouldLeaveUncoveredSearchesToDatabase(){
+        Pageable pageable = new OffsetBasedPageRequest(0, 10, Sort.by(Sort.Direction.ASC, "salary"));
+        assertFalse(employeeColumnStore.findEmployees(0.0, 4000.0, "e0001", null, null, pageable).isPresent());
+        assertFalse(employeeColumnStore.findEmployees(0.0, 4000.0, null, "login1", null, pageable).isPresent());
+        assertFalse(employeeColumnStore.findEmployees(null, 4000.0, null, null, null, pageable).isPresent());
+        assertFalse(employeeColumnStore.findEmployees(0.0, 4000.0, null, null, "Ha_ry", pageable).isPresent());
+        assertFalse(employeeColumnStore.findEmployees(0.0, 4000.0, null, null, null,
+                new OffsetBasedPageRequest(0, 10, Sort.by("salary", "name"))).isPresent());
+    }
+
+    private void assertSameAsDatabase(){
+        double[][] ranges = {{0.0, 4000.0}, {500.5, 2250.5}, {750.0, 750.0}, {3000.0, 100.0}, {-1.0, 1e9}};
+        String[] names = {null, "Harry", "arry 1", "Nobody"};
+        for (String sort : new String[]{"id", "name", "login", "salary"}){
+            for (Sort.Direction direction : Sort.Direction.values()){
+                for (double[] range : ranges){
+                    for (String name : names){
+                        for (int offset : new int[]{0, 7, 95, 400}){
+                            Pageable pageable = new OffsetBasedPageRequest(offset, 40, Sort.by(direction, sort));
+                            List<Employee> expected = employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(
+                                    range[0], range[1], null, null, name, pageable);
+                            Optional<List<Employee>> actual = employeeColumnStore.findEmployees(range[0], range[1], null, null, name, pageable);
+                            String query = String.format("%s %s %s-%s %s %d", sort, direction, range[0], range[1], name, offset);
+                            assertTrue(actual.isPresent(), query);
+                            assertEquals(this.describe(expected), this.describe(actual.get()), query);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> describe(List<Employee> employees){
+        return employees.stream().map(Employee::toString).collect(Collectors.toList());
+    }
+}
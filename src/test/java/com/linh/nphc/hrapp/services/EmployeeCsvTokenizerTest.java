@@ -0,0 +1,165 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.linh.nphc.hrapp.models.Employee;
+import com.opencsv.exceptions.CsvValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeCsvTokenizerTest {
+
+    private static final String HEADER = "id,login,name,salary,startDate\n";
+
+    private final StartDateParser startDateParser = new StartDateParser(StartDateParser.DEFAULT_FORMATS);
+
+    @Test
+    public void shouldReadEmployeesAfterHeader() throws IOException, URISyntaxException {
+        byte[] content = Files.readAllBytes(Paths.get(ClassLoader.getSystemResource("employees.csv").toURI()));
+        List<Employee> employees = this.readAll(content, EmployeeCsvTokenizer.DEFAULT_BUFFER_SIZE);
+        assertEquals(10, employees.size());
+        this.assertEmployee(employees.get(0), "e0001", "hpotter", "Harry Potter", 1234.00, LocalDate.of(2001, 11, 16));
+        this.assertEmployee(employees.get(3), "e0004", "rhagrid", "Rubeus Hagrid", 3999.999, LocalDate.of(2001, 11, 16));
+        this.assertEmployee(employees.get(9), "e0010", "basilisk", "Basilisk", 23.43, LocalDate.of(2001, 11, 21));
+    }
+
+    @Test
+    public void shouldReadQuotedAndBlankFields() throws IOException {
+        List<Employee> employees = this.readAll(HEADER
+                + "\"e0001\",\"hpotter\",\"Potter, \"\"Harry\"\"\",\"1234.5\",\"2001-11-16\"\r\n"
+                + ",  ,\"\", ,\n"
+                + "#e0003,ssnape,Zoë Snape,-0,16-Nov-01", 16);
+        assertEquals(3, employees.size());
+        this.assertEmployee(employees.get(0), "e0001", "hpotter", "Potter, \"Harry\"", 1234.5, LocalDate.of(2001, 11, 16));
+        this.assertEmployee(employees.get(1), null, null, null, null, null);
+        this.assertEmployee(employees.get(2), "#e0003", "ssnape", "Zoë Snape", -0.0, LocalDate.of(2001, 11, 16));
+    }
+
+    @Test
+    public void shouldParseSalariesLikeDoubleValueOf() throws IOException {
+        String[] salaries = {"0", "0.0", "1234.00", "3999.999", "4000.004", "0.1", "0.3", ".5", "5.", "+12.25", "-3.75",
+                "9007199254740993", "123456789012345678901234", "0.1234567890123456789012345", "1e3", "2.5d", " 42.5 ",
+                "00000000000000000000001.5", "179769313486231570000000000000000000000.0"};
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < salaries.length; i++){
+            content.append("e").append(i).append(",l").append(i).append(",N,").append(salaries[i]).append(",2001-11-16\n");
+        }
+        List<Employee> employees = this.readAll(content.toString(), 32);
+        for (int i = 0; i < salaries.length; i++){
+            assertEquals(Double.valueOf(salaries[i]), employees.get(i).getSalary(), salaries[i]);
+        }
+    }
+
+    @Test
+    public void shouldReportInvalidValues() throws IOException {
+        UnableToReadFileException salary = assertThrows(UnableToReadFileException.class,
+                () -> this.readAll(HEADER + "e0002,ronwl,Ron Weasley,abcd,2001-11-16\n", 64));
+        assertEquals("Unable to parse number abcd", salary.getMessage());
+        assertThrows(UnableToReadFileException.class, () -> this.readAll(HEADER + "e1,l,N,1.2.3,2001-11-16\n", 64));
+        assertThrows(UnableToReadFileException.class, () -> this.readAll(HEADER + "e1,l,N,-,2001-11-16\n", 64));
+        UnableToReadFileException date = assertThrows(UnableToReadFileException.class,
+                () -> this.readAll(HEADER + "e1,l,N,1.0,2001-Nov-16\n", 64));
+        assertEquals("Invalid date 2001-Nov-16", date.getMessage());
+        UnableToReadFileException dateFirst = assertThrows(UnableToReadFileException.class,
+                () -> this.readAll(HEADER + "e1,l1,N,abc,not-a-date\n", 64));
+        assertEquals("Invalid date not-a-date", dateFirst.getMessage());
+        UnableToReadFileException columns = assertThrows(UnableToReadFileException.class,
+                () -> this.readAll(HEADER + "e1,l,N,1.0\n", 64));
+        assertEquals("Row has 4 columns instead of 5", columns.getMessage());
+        assertThrows(UnableToReadFileException.class, () -> this.readAll(HEADER + "e1,l,\"N,1.0,2001-11-16\n", 64));
+    }
+
+    @Test
+    public void shouldHandleBackslashesLikeCsvReader() throws IOException {
+        List<Employee> employees = this.readAll(HEADER
+                + "e1,l1,C:\\dir\\x,1,2001-11-16\n"
+                + "e2,l2,a\\\\b,2,2001-11-16\n"
+                + "e3,l3,\"say \\\"hi\\\", bye\",3,2001-11-16\n"
+                + "e4,l4,\\,4,2001-11-16\n", 16);
+        assertEquals("C:dirx", employees.get(0).getName());
+        assertEquals("a\\b", employees.get(1).getName());
+        assertEquals("say \"hi\", bye", employees.get(2).getName());
+        assertNull(employees.get(3).getName());
+    }
+
+    @Test
+    public void shouldReadRowsLongerThanBuffer() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100; i++){
+            name.append("Name").append(i).append(' ');
+        }
+        List<Employee> employees = this.readAll(HEADER + "e1,l1,\"" + name + "\",1.5,2001-11-16\ne2,l2,N,2.5,2001-11-17", 8);
+        assertEquals(2, employees.size());
+        assertEquals(name.toString(), employees.get(0).getName());
+        assertEquals(LocalDate.of(2001, 11, 17), employees.get(1).getStartDate());
+    }
+
+    @Test
+    public void shouldLeaveSalaryAndDateParsingToTheConversion() throws IOException {
+        byte[] content = (HEADER + "e0001,hpotter,Harry Potter,abcd,2001-13-45\n").getBytes(StandardCharsets.UTF_8);
+        try (EmployeeCsvTokenizer tokenizer = new EmployeeCsvTokenizer(new ByteArrayInputStream(content))){
+            EmployeeCsvRow row = tokenizer.readNext();
+            assertNotNull(row);
+            assertNull(tokenizer.readNext());
+            assertThrows(UnableToReadFileException.class, () -> row.toEmployee(startDateParser));
+        }
+    }
+
+    @Test
+    public void shouldReadParityCasesLikeCsvReader() throws IOException, CsvValidationException {
+        EmployeeRowConverter employeeRowConverter = new EmployeeRowConverter(startDateParser);
+        for (Map.Entry<String, String> parityCase : CsvParityCases.READABLE.entrySet()){
+            List<String[]> expected = CsvParityCases.readWithCsvReader(parityCase.getValue());
+            for (int bufferSize : new int[]{EmployeeCsvTokenizer.DEFAULT_BUFFER_SIZE, 16}){
+                List<Employee> actual = this.readAll(parityCase.getValue(), bufferSize);
+                assertEquals(expected.size(), actual.size(), parityCase.getKey());
+                for (int i = 0; i < expected.size(); i++){
+                    assertEquals(employeeRowConverter.convert(expected.get(i)).toString(), actual.get(i).toString(), parityCase.getKey());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedParityCases(){
+        for (Map.Entry<String, String> parityCase : CsvParityCases.MALFORMED.entrySet()){
+            assertThrows(IOException.class, () -> CsvParityCases.readWithCsvReader(parityCase.getValue()), parityCase.getKey());
+            assertThrows(UnableToReadFileException.class,
+                    () -> this.readAll(parityCase.getValue(), EmployeeCsvTokenizer.DEFAULT_BUFFER_SIZE), parityCase.getKey());
+        }
+    }
+
+    private void assertEmployee(Employee employee, String id, String login, String name, Double salary, LocalDate startDate){
+        assertEquals(id, employee.getId());
+        assertEquals(login, employee.getLogin());
+        assertEquals(name, employee.getName());
+        assertEquals(salary, employee.getSalary());
+        assertEquals(startDate, employee.getStartDate());
+    }
+
+    private List<Employee> readAll(String content, int bufferSize) throws IOException {
+        return this.readAll(content.getBytes(StandardCharsets.UTF_8), bufferSize);
+    }
+
+    private List<Employee> readAll(byte[] content, int bufferSize) throws IOException {
+        List<Employee> employees = new ArrayList<>();
+        try (EmployeeCsvTokenizer tokenizer = new EmployeeCsvTokenizer(new ByteArrayInputStream(content), bufferSize)){
+            EmployeeCsvRow row;
+            while ((row = tokenizer.readNext()) != null){
+                employees.add(row.toEmployee(startDateParser));
+            }
+        }
+        return employees;
+    }
+}
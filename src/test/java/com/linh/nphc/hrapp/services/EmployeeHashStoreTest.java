@@ -0,0 +1,135 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeHashStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EmployeeJdbcRepository employeeJdbcRepository;
+
+    @Mock
+    private EmployeeChangeTracker employeeChangeTracker;
+
+    @Mock
+    private IndexReloader indexReloader;
+
+    @InjectMocks
+    private EmployeeHashStore employeeHashStore;
+
+    @BeforeEach
+    public void setUp(){
+        ReflectionTestUtils.setField(employeeHashStore, "enabled", true);
+        employeeHashStore.load();
+        this.commit(employee("hpotter", "Harry Potter", 1234.0, 16));
+    }
+
+    @Test
+    public void shouldRecogniseUnchangedEmployee(){
+        assertTrue(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldDetectChangeInAnyField(){
+        assertFalse(employeeHashStore.isUnchanged(employee("harry", "Harry Potter", 1234.0, 16)));
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry J Potter", 1234.0, 16)));
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.5, 16)));
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 17)));
+    }
+
+    @Test
+    public void shouldForgetDeletedEmployee(){
+        this.commit();
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldKeepCommittedValuesWhenEventsArriveOutOfOrder(){
+        // The event of an older write applied after a newer one reads the newer, committed row
+        this.commit(employee("hpotter", "Harry J Potter", 1234.0, 16));
+        this.commit(employee("hpotter", "Harry J Potter", 1234.0, 16));
+        assertTrue(employeeHashStore.isUnchanged(employee("hpotter", "Harry J Potter", 1234.0, 16)));
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldNotSkipWhileOtherTransactionsHaveChanges(){
+        when(employeeChangeTracker.hasConcurrentChanges()).thenReturn(true);
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldReloadEverythingInBackgroundWhenAsked(){
+        employeeHashStore.onEmployeesChanged(new EmployeesChangedEvent(Collections.emptySet(), true));
+        ArgumentCaptor<Runnable> reload = ArgumentCaptor.forClass(Runnable.class);
+        verify(indexReloader).request(anyString(), reload.capture());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+        // Stale until the reload has run
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+
+        reload.getValue().run();
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class));
+        this.commit(employee("hpotter", "Harry Potter", 1234.0, 16));
+        assertTrue(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldApplyChangesCommittedWhileLoading(){
+        doAnswer(invocation -> {
+            this.commit(employee("hpotter", "Harry J Potter", 1234.0, 16));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        employeeHashStore.load();
+        assertTrue(employeeHashStore.isUnchanged(employee("hpotter", "Harry J Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldStayStaleWhenReloadIsAskedWhileLoading(){
+        doAnswer(invocation -> {
+            employeeHashStore.onEmployeesChanged(new EmployeesChangedEvent(Collections.emptySet(), true));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        employeeHashStore.load();
+        verify(indexReloader).request(anyString(), any(Runnable.class));
+        assertFalse(employeeHashStore.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    @Test
+    public void shouldNotSkipAnythingWhenDisabled(){
+        EmployeeHashStore disabled = new EmployeeHashStore();
+        disabled.load();
+        disabled.onEmployeesChanged(new EmployeesChangedEvent(Collections.singleton("e0001"), false));
+        assertFalse(disabled.isUnchanged(employee("hpotter", "Harry Potter", 1234.0, 16)));
+    }
+
+    private void commit(Employee... committed){
+        when(employeeJdbcRepository.findCommitted(Collections.singleton("e0001"))).thenReturn(Arrays.asList(committed));
+        employeeHashStore.onEmployeesChanged(new EmployeesChangedEvent(Collections.singleton("e0001"), false));
+    }
+
+    private static Employee employee(String login, String name, double salary, int day){
+        return new Employee("e0001", login, name, salary, LocalDate.of(2001, 11, day));
+    }
+}
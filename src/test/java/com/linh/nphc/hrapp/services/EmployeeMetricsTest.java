@@ -0,0 +1,73 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.UploadProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void shouldRecordStagesAndRows(){
+        EmployeeMetrics employeeMetrics = new EmployeeMetrics(registry, true);
+        long start = employeeMetrics.start();
+        long converted = employeeMetrics.stage(EmployeeMetrics.Stage.CONVERT, start);
+        employeeMetrics.stage(EmployeeMetrics.Stage.VALIDATE, converted);
+        employeeMetrics.rowsWritten(4);
+        employeeMetrics.rowsSkipped(1);
+
+        assertEquals(1, registry.get("hrapp.upload.stage").tag("stage", "convert").timer().count());
+        assertEquals(1, registry.get("hrapp.upload.stage").tag("stage", "validate").timer().count());
+        assertEquals(0, registry.get("hrapp.upload.stage").tag("stage", "write").timer().count());
+        assertEquals(4, registry.get("hrapp.upload.rows").tag("result", "written").counter().count());
+        assertEquals(1, registry.get("hrapp.upload.rows").tag("result", "skipped").counter().count());
+    }
+
+    @Test
+    public void shouldTagSearchesByFilters(){
+        EmployeeMetrics employeeMetrics = new EmployeeMetrics(registry, true);
+        employeeMetrics.search(null, null, null, employeeMetrics.start());
+        employeeMetrics.search(null, "hpotter", "Harry", employeeMetrics.start());
+        employeeMetrics.search("e0001", "hpotter", "Harry", employeeMetrics.start());
+
+        assertEquals(1, registry.get("hrapp.search").tag("filters", "none").timer().count());
+        assertEquals(1, registry.get("hrapp.search").tag("filters", "login+name").timer().count());
+        assertEquals(1, registry.get("hrapp.search").tag("filters", "id+login+name").timer().count());
+        assertEquals(8, registry.get("hrapp.search").timers().size());
+    }
+
+    @Test
+    public void shouldReportImportsInProgress() throws InterruptedException {
+        EmployeeMetrics employeeMetrics = new EmployeeMetrics(registry, true);
+        UploadProgress progress = new UploadProgress();
+        employeeMetrics.importStarted(progress);
+        progress.rowParsed();
+        TimeUnit.MILLISECONDS.sleep(5);
+
+        assertEquals(1, registry.get("hrapp.upload.active").gauge().value());
+        assertTrue(registry.get("hrapp.upload.rate").gauge().value() > 0);
+        assertEquals("rows", registry.get("hrapp.upload.rate").gauge().getId().getBaseUnit());
+
+        employeeMetrics.importFinished(progress);
+        assertEquals(0, registry.get("hrapp.upload.active").gauge().value());
+        assertEquals(0, registry.get("hrapp.upload.rate").gauge().value());
+    }
+
+    @Test
+    public void shouldRecordNothingWhenDisabled(){
+        EmployeeMetrics employeeMetrics = new EmployeeMetrics(registry, false);
+        assertEquals(0, employeeMetrics.start());
+        employeeMetrics.stage(EmployeeMetrics.Stage.WRITE, employeeMetrics.start());
+        employeeMetrics.search(null, null, null, employeeMetrics.start());
+        employeeMetrics.importStarted(new UploadProgress());
+
+        assertEquals(0, registry.get("hrapp.upload.stage").tag("stage", "write").timer().count());
+        assertEquals(0, registry.get("hrapp.search").tag("filters", "none").timer().count());
+        assertEquals(0, registry.get("hrapp.upload.active").gauge().value());
+    }
+}
@@ -0,0 +1,126 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeNameIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EmployeeJdbcRepository employeeJdbcRepository;
+
+    @Mock
+    private IndexReloader indexReloader;
+
+    @InjectMocks
+    private EmployeeNameIndex employeeNameIndex;
+
+    @BeforeEach
+    public void setUp(){
+        ReflectionTestUtils.setField(employeeNameIndex, "enabled", true);
+        ReflectionTestUtils.setField(employeeNameIndex, "maxCandidates", 1000);
+        employeeNameIndex.load();
+        this.save(employee("e0001", "Harry Potter"), employee("e0002", "Ron Weasley"), employee("e0003", "Hermione Granger"));
+    }
+
+    @Test
+    public void shouldFindIdsByNameSubstring(){
+        assertEquals(ids("e0001"), employeeNameIndex.findIdsByName("arry Pot").orElse(null));
+        assertEquals(ids("e0002", "e0003"), employeeNameIndex.findIdsByName("on").orElse(null));
+        assertEquals(ids(), employeeNameIndex.findIdsByName("Draco").orElse(null));
+    }
+
+    @Test
+    public void shouldMatchCaseOnlyWhenConfigured(){
+        assertEquals(ids(), employeeNameIndex.findIdsByName("harry").orElse(null));
+        ReflectionTestUtils.setField(employeeNameIndex, "caseInsensitive", true);
+        assertEquals(ids("e0001"), employeeNameIndex.findIdsByName("harry").orElse(null));
+    }
+
+    @Test
+    public void shouldFollowUpdatesAndDeletes(){
+        this.save(employee("e0001", "Draco Malfoy"));
+        this.commit(ids("e0002"));
+        assertEquals(ids(), employeeNameIndex.findIdsByName("Harry").orElse(null));
+        assertEquals(ids("e0001"), employeeNameIndex.findIdsByName("Malfoy").orElse(null));
+        assertEquals(ids(), employeeNameIndex.findIdsByName("Ron").orElse(null));
+    }
+
+    @Test
+    public void shouldLeaveSearchToDatabaseWhenTooManyMatches(){
+        ReflectionTestUtils.setField(employeeNameIndex, "maxCandidates", 1);
+        assertFalse(employeeNameIndex.findIdsByName("e").isPresent());
+        assertTrue(employeeNameIndex.findIdsByName("Harry").isPresent());
+    }
+
+    @Test
+    public void shouldLeaveWildcardsToDatabase(){
+        assertFalse(employeeNameIndex.findIdsByName("Har_y").isPresent());
+        assertFalse(employeeNameIndex.findIdsByName("Harry%").isPresent());
+        assertFalse(employeeNameIndex.findIdsByName("Harry\\").isPresent());
+    }
+
+    @Test
+    public void shouldLeaveSearchToDatabaseUntilReloaded(){
+        employeeNameIndex.onEmployeesChanged(new EmployeesChangedEvent(Collections.emptySet(), true));
+        ArgumentCaptor<Runnable> reload = ArgumentCaptor.forClass(Runnable.class);
+        verify(indexReloader).request(anyString(), reload.capture());
+        assertFalse(employeeNameIndex.findIdsByName("Harry").isPresent());
+
+        doAnswer(invocation -> {
+            // Changed while the table is read, so missing from what the reload reads
+            this.save(employee("e0004", "Draco Malfoy"));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        reload.getValue().run();
+        assertEquals(ids("e0004"), employeeNameIndex.findIdsByName("Malfoy").orElse(null));
+    }
+
+    @Test
+    public void shouldLeaveSearchToDatabaseWhenNotLoaded(){
+        EmployeeNameIndex disabled = new EmployeeNameIndex();
+        disabled.load();
+        assertFalse(disabled.findIdsByName("Harry").isPresent());
+    }
+
+    private void save(Employee... employees){
+        Set<String> ids = new HashSet<>();
+        for (Employee employee : employees){
+            ids.add(employee.getId());
+        }
+        this.commit(ids, employees);
+    }
+
+    private void commit(Set<String> ids, Employee... committed){
+        when(employeeJdbcRepository.findCommitted(ids)).thenReturn(Arrays.asList(committed));
+        employeeNameIndex.onEmployeesChanged(new EmployeesChangedEvent(ids, false));
+    }
+
+    private static Employee employee(String id, String name){
+        return new Employee(id, id, name, 1000.0, LocalDate.of(2001, 11, 16));
+    }
+
+    private static Set<String> ids(String... ids){
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,42 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.linh.nphc.hrapp.models.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeRowConverterTest {
+
+    private final EmployeeRowConverter employeeRowConverter = new EmployeeRowConverter(
+            new StartDateParser(StartDateParser.DEFAULT_FORMATS));
+
+    @Test
+    public void shouldConvertRowAndLeaveBlanksForValidation(){
+        Employee employee = employeeRowConverter.convert(new String[]{"e0001", "hpotter", "Harry Potter", "1234.00", "16-Nov-01"});
+        assertEquals("e0001", employee.getId());
+        assertEquals("hpotter", employee.getLogin());
+        assertEquals("Harry Potter", employee.getName());
+        assertEquals(1234.00, employee.getSalary());
+        assertEquals(LocalDate.of(2001, 11, 16), employee.getStartDate());
+
+        Employee blank = employeeRowConverter.convert(new String[]{" ", null, "", " ", null});
+        assertNull(blank.getId());
+        assertNull(blank.getLogin());
+        assertNull(blank.getName());
+        assertNull(blank.getSalary());
+        assertNull(blank.getStartDate());
+    }
+
+    @Test
+    public void shouldReportDateBeforeSalary(){
+        UnableToReadFileException date = assertThrows(UnableToReadFileException.class,
+                () -> employeeRowConverter.convert(new String[]{"e1", "l1", "N", "abc", "not-a-date"}));
+        assertEquals("Invalid date not-a-date", date.getMessage());
+        UnableToReadFileException salary = assertThrows(UnableToReadFileException.class,
+                () -> employeeRowConverter.convert(new String[]{"e1", "l1", "N", "abc", "2001-11-16"}));
+        assertEquals("Unable to parse number abc", salary.getMessage());
+    }
+}
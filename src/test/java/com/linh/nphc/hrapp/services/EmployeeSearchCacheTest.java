@@ -0,0 +1,63 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.models.Employee;
+import com.linh.nphc.hrapp.models.EmployeesChangedEvent;
+import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeSearchCacheTest {
+
+    private final EmployeeSearchCache employeeSearchCache = new EmployeeSearchCache(10);
+    private final AtomicInteger searches = new AtomicInteger();
+    private final Supplier<List<Employee>> search = () -> {
+        searches.incrementAndGet();
+        return Collections.singletonList(new Employee("e0001", "hpotter", "Harry Potter", 1000.0, LocalDate.of(2001, 11, 16)));
+    };
+
+    @Test
+    public void shouldReuseResultForSameSearch(){
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        assertEquals(1, searches.get());
+        assertEquals(1, employeeSearchCache.stats().hitCount());
+    }
+
+    @Test
+    public void shouldSearchAgainForDifferentParameters(){
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(10, Sort.Direction.ASC), search);
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.DESC), search);
+        employeeSearchCache.get(0.0, 4000.0, null, null, "Harry", page(0, Sort.Direction.ASC), search);
+        assertEquals(4, searches.get());
+    }
+
+    @Test
+    public void shouldAlwaysSearchWhenDisabled(){
+        EmployeeSearchCache disabled = new EmployeeSearchCache(0);
+        disabled.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        disabled.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void shouldSearchAgainAfterDataChanged(){
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        employeeSearchCache.onEmployeesChanged(new EmployeesChangedEvent(Collections.singleton("e0002"), false));
+        employeeSearchCache.get(0.0, 4000.0, null, null, null, page(0, Sort.Direction.ASC), search);
+        assertEquals(2, searches.get());
+        assertEquals(1, employeeSearchCache.getVersion());
+    }
+
+    private static OffsetBasedPageRequest page(int offset, Sort.Direction direction){
+        return new OffsetBasedPageRequest(offset, 10, Sort.by(direction, "id"));
+    }
+}
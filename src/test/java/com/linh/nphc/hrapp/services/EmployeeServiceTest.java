@@ -6,18 +6,25 @@ import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
 import com.linh.nphc.hrapp.models.Employee;
 import com.linh.nphc.hrapp.models.EmployeeDTO;
 import com.linh.nphc.hrapp.models.OffsetBasedPageRequest;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import com.linh.nphc.hrapp.repositories.EmployeeJdbcRepository;
 import com.linh.nphc.hrapp.repositories.EmployeeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.validation.Validation;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
@@ -25,7 +32,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,11 +46,34 @@ public class EmployeeServiceTest {
 
     @Mock
     private EmployeeRepository employeeRepository;
+    @Mock
+    private EmployeeJdbcRepository employeeJdbcRepository;
+    @Spy
+    private EmployeeValidator employeeValidator;
+    @Spy
+    private StartDateParser startDateParser = new StartDateParser(StartDateParser.DEFAULT_FORMATS);
+    @Spy
+    private EmployeeRowConverter employeeRowConverter = new EmployeeRowConverter(startDateParser);
+    @Mock
+    private EmployeeChangeTracker employeeChangeTracker;
+    @Mock
+    private EmployeeNameIndex employeeNameIndex;
+    @Spy
+    private EmployeeCache employeeCache = new EmployeeCache(10000);
+    @Spy
+    private EmployeeSearchCache employeeSearchCache = new EmployeeSearchCache(100000);
+    @Mock
+    private EmployeeHashStore employeeHashStore;
+    @Mock
+    private EmployeeColumnStore employeeColumnStore;
+    @Spy
+    private EmployeeMetrics employeeMetrics = new EmployeeMetrics(new SimpleMeterRegistry(), true);
     @InjectMocks
     private EmployeeService employeeService;
 
     @BeforeEach
     public void setUp(){
+        ReflectionTestUtils.setField(employeeService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
         lenient().when(employeeRepository.save(any(Employee.class))).thenReturn(new Employee());
     }
 
@@ -50,6 +83,129 @@ public class EmployeeServiceTest {
         employeeService.processFile(file);
     }
 
+    @Test
+    public void shouldSaveFileInBatches() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "batchSize", 4);
+        MultipartFile file = this.getFile("employees.csv");
+        employeeService.processFile(file);
+        verify(employeeJdbcRepository, times(3)).saveAll(anyList());
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    @Test
+    public void shouldTimeEachUploadStage() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "batchSize", 4);
+        ReflectionTestUtils.setField(employeeService, "fastParsing", false);
+        UploadProgress progress = new UploadProgress();
+        employeeService.processFile(this.getFile("employees.csv"), progress);
+        long rows = progress.getRowsParsed();
+        verify(employeeMetrics, times((int) rows + 1)).stage(eq(EmployeeMetrics.Stage.PARSE), anyLong());
+        verify(employeeMetrics, times((int) rows)).stage(eq(EmployeeMetrics.Stage.CONVERT), anyLong());
+        verify(employeeMetrics, times((int) rows)).stage(eq(EmployeeMetrics.Stage.VALIDATE), anyLong());
+        verify(employeeMetrics, times(3)).stage(eq(EmployeeMetrics.Stage.WRITE), anyLong());
+        verify(employeeMetrics).importStarted(progress);
+        verify(employeeMetrics).importFinished(progress);
+    }
+
+    @Test
+    public void shouldSkipEmployeesMatchingStoredHash() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "batchSize", 100);
+        when(employeeHashStore.isUnchanged(any(Employee.class))).thenAnswer(invocation -> !"e0001".equals(invocation.getArgument(0, Employee.class).getId()));
+        List<String> savedIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<List<Employee>>getArgument(0).forEach(employee -> savedIds.add(employee.getId()));
+            return null;
+        }).when(employeeJdbcRepository).saveAll(anyList());
+        UploadProgress progress = new UploadProgress();
+        employeeService.processFile(this.getFile("employees.csv"), progress);
+        assertEquals(Collections.singletonList("e0001"), savedIds);
+        assertEquals(9, progress.getRowsSkipped());
+    }
+
+    @Test
+    public void shouldUpsertFileAndReportOnlyChangedEmployees() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "batchSize", 100);
+        Employee changed = new Employee("e0001", "hpotter", "Harry Potter", 1234.00, LocalDate.of(2001, 11, 16));
+        when(employeeJdbcRepository.upsertAll(anyList(), any(UploadProgress.class))).thenReturn(Collections.singletonList(changed));
+        employeeService.upsertFile(this.getFile("employees.csv"), new UploadProgress());
+        verify(employeeJdbcRepository).upsertAll(anyList(), any(UploadProgress.class));
+        verify(employeeJdbcRepository, never()).saveAll(anyList());
+        verify(employeeChangeTracker).changed("e0001");
+        verifyNoMoreInteractions(employeeChangeTracker);
+    }
+
+    @Test
+    public void shouldImportFileFromImportDirectory(@TempDir Path importDir) throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "batchSize", 100);
+        ReflectionTestUtils.setField(employeeService, "importBaseDir", importDir.toString());
+        Files.copy(Paths.get(ClassLoader.getSystemResource("employees.csv").toURI()), importDir.resolve("employees.csv"));
+        List<String> savedIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<List<Employee>>getArgument(0).forEach(employee -> savedIds.add(employee.getId()));
+            return null;
+        }).when(employeeJdbcRepository).saveAll(anyList());
+        UploadProgress progress = new UploadProgress();
+        employeeService.importPath("employees.csv", progress);
+        assertEquals(10, savedIds.size());
+        assertEquals("e0001", savedIds.get(0));
+        assertEquals(10, progress.getRowsParsed());
+    }
+
+    @Test
+    public void shouldRejectImportOutsideImportDirectory(@TempDir Path importDir) throws IOException {
+        assertThrows(InvalidFieldException.class, () -> employeeService.importPath("employees.csv", new UploadProgress()));
+        ReflectionTestUtils.setField(employeeService, "importBaseDir", importDir.resolve("imports").toString());
+        Files.createDirectory(importDir.resolve("imports"));
+        Files.write(importDir.resolve("outside.csv"), "id,login,name,salary,startDate\n".getBytes());
+        assertThrows(InvalidFieldException.class, () -> employeeService.importPath("../outside.csv", new UploadProgress()));
+        assertThrows(InvalidFieldException.class, () -> employeeService.importPath("missing.csv", new UploadProgress()));
+        verify(employeeJdbcRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void shouldProcessFileWithParallelWorkers() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "workers", 4);
+        ReflectionTestUtils.setField(employeeService, "chunkSize", 3);
+        ReflectionTestUtils.setField(employeeService, "batchSize", 100);
+        List<String> savedIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            employees.forEach(employee -> savedIds.add(employee.getId()));
+            return null;
+        }).when(employeeJdbcRepository).saveAll(anyList());
+        employeeService.startWorkers();
+        try {
+            employeeService.processFile(this.getFile("employees.csv"));
+            assertEquals(Arrays.asList("e0001", "e0002", "e0003", "e0004", "e0005", "e0006", "e0007", "e0008", "e0009", "e0010"), savedIds);
+            assertThrows(DuplicateRowException.class, () -> employeeService.processFile(this.getFile("employees_duplicates.csv")));
+            assertThrows(UnableToReadFileException.class, () -> employeeService.processFile(this.getFile("employees_wrongdate.csv")));
+        } finally {
+            employeeService.stopWorkers();
+        }
+    }
+
+    @Test
+    public void shouldProcessFileWithFastParsing() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "fastParsing", true);
+        ReflectionTestUtils.setField(employeeService, "batchSize", 100);
+        List<Employee> saved = new ArrayList<>();
+        doAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return null;
+        }).when(employeeJdbcRepository).saveAll(anyList());
+        employeeService.processFile(this.getFile("employees.csv"));
+        assertEquals(10, saved.size());
+        assertEquals("Harry Potter", saved.get(0).getName());
+        assertEquals(Double.valueOf(19234.50), saved.get(1).getSalary());
+        assertEquals(LocalDate.of(2001, 11, 21), saved.get(9).getStartDate());
+        assertThrows(DuplicateRowException.class, () -> employeeService.processFile(this.getFile("employees_duplicates.csv")));
+        assertThrows(InvalidFieldException.class, () -> employeeService.processFile(this.getFile("employees_null.csv")));
+        assertThrows(UnableToReadFileException.class, () -> employeeService.processFile(this.getFile("employees_wrongdate.csv")));
+        UnableToReadFileException exception = assertThrows(UnableToReadFileException.class,
+                () -> employeeService.processFile(this.getFile("employees_wrongsalary.csv")));
+        assertEquals("Unable to parse number abcd", exception.getMessage());
+    }
+
     private MultipartFile getFile(String filePath) throws URISyntaxException, IOException {
         Path path = Paths.get(ClassLoader.getSystemResource(filePath).toURI());
         byte[] content = Files.readAllBytes(path);
@@ -62,6 +218,13 @@ public class EmployeeServiceTest {
         assertThrows(DuplicateRowException.class, () -> employeeService.processFile(file));
     }
 
+    @Test
+    public void shouldThrowExceptionWhenLoginDuplicates() throws IOException, URISyntaxException {
+        MultipartFile file = this.getFile("employees_login_duplicates.csv");
+        DuplicateRowException exception = assertThrows(DuplicateRowException.class, () -> employeeService.processFile(file));
+        assertEquals("Login hpotter is duplicated", exception.getMessage());
+    }
+
     @Test
     public void shouldThrowExceptionWhenFieldInvalid() throws IOException, URISyntaxException {
         MultipartFile fileNull = this.getFile("employees_null.csv");
@@ -70,6 +233,15 @@ public class EmployeeServiceTest {
         assertThrows(InvalidFieldException.class, () -> employeeService.processFile(fileLessZero));
     }
 
+    @Test
+    public void shouldThrowExceptionWhenFieldInvalidWithFastValidation() throws IOException, URISyntaxException {
+        ReflectionTestUtils.setField(employeeService, "fastValidation", true);
+        MultipartFile fileNull = this.getFile("employees_null.csv");
+        InvalidFieldException exception = assertThrows(InvalidFieldException.class, () -> employeeService.processFile(fileNull));
+        assertEquals("Login cannot be null", exception.getMessage());
+        verify(employeeValidator).validate(any(Employee.class));
+    }
+
     @Test
     public void shouldThrowExceptionWhenWrongDateFormat() throws URISyntaxException, IOException {
         MultipartFile file = this.getFile("employees_wrongdate.csv");
@@ -93,6 +265,14 @@ public class EmployeeServiceTest {
                 new OffsetBasedPageRequest(0, 10, Sort.by(Sort.Direction.ASC, "id"))).size());
     }
 
+    @Test
+    public void shouldReturnEmployeesFromColumnStore(){
+        Pageable pageable = new OffsetBasedPageRequest(0, 10, Sort.by(Sort.Direction.ASC, "salary"));
+        when(employeeColumnStore.findEmployees(0.0, 4000.0, null, null, null, pageable)).thenReturn(Optional.of(Arrays.asList(new Employee())));
+        assertEquals(1, employeeService.getEmployees(0.0, 4000.0, null, null, null, pageable).size());
+        verifyNoInteractions(employeeRepository);
+    }
+
     @Test
     public void shouldThrowExceptionIfNotAbleToQueryEmployees(){
         when(employeeRepository.findEmployeesBySalaryRangeAndNameAndLoginAndID(anyDouble(), anyDouble(), anyString(), anyString(), anyString(), any(Pageable.class))).thenThrow(new RuntimeException("Unable to query employees"));
@@ -0,0 +1,46 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import com.linh.nphc.hrapp.models.Employee;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeValidatorTest {
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final EmployeeValidator employeeValidator = new EmployeeValidator();
+
+    @Test
+    public void shouldAcceptValidEmployee(){
+        employeeValidator.validate(new Employee("e0001", "hpotter", "Harry Potter", 0.0, LocalDate.of(2001, 11, 16)));
+    }
+
+    @Test
+    public void shouldMatchBeanValidationMessages(){
+        assertSameMessage(new Employee(null, "hpotter", "Harry Potter", 1234.0, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee(" ", "hpotter", "Harry Potter", 1234.0, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", null, "Harry Potter", 1234.0, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "", "Harry Potter", 1234.0, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "hpotter", null, 1234.0, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "hpotter", "\t", 1234.0, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "hpotter", "Harry Potter", null, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "hpotter", "Harry Potter", -0.01, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "hpotter", "Harry Potter", Double.NaN, LocalDate.of(2001, 11, 16)));
+        assertSameMessage(new Employee("e0001", "hpotter", "Harry Potter", 1234.0, null));
+    }
+
+    private void assertSameMessage(Employee employee){
+        Set<String> expected = VALIDATOR.validate(employee).stream().map(ConstraintViolation::getMessage).collect(Collectors.toSet());
+        InvalidFieldException exception = assertThrows(InvalidFieldException.class, () -> employeeValidator.validate(employee));
+        assertTrue(expected.contains(exception.getMessage()), exception.getMessage() + " not in " + expected);
+    }
+}
@@ -0,0 +1,76 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UploadRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportBulkheadTest {
+
+    @Test
+    public void shouldRejectImportsBeyondRunningAndQueued() throws InterruptedException {
+        ImportBulkhead importBulkhead = new ImportBulkhead(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch rejection = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            executor.execute(() -> importBulkhead.run(() -> {
+                started.countDown();
+                this.await(release);
+                finished.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // With one import running, one of these two waits for the slot and the other is turned away
+            for (int i = 0; i < 2; i++){
+                executor.execute(() -> {
+                    try {
+                        importBulkhead.run(finished::incrementAndGet);
+                    } catch (UploadRejectedException e){
+                        rejected.incrementAndGet();
+                        rejection.countDown();
+                    }
+                });
+            }
+            assertTrue(rejection.await(5, TimeUnit.SECONDS));
+            assertEquals(0, finished.get());
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(2, finished.get());
+            assertEquals(1, rejected.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        importBulkhead.run(finished::incrementAndGet);
+        assertEquals(3, finished.get());
+    }
+
+    @Test
+    public void shouldFreeSlotWhenImportFails(){
+        ImportBulkhead importBulkhead = new ImportBulkhead(1, 0);
+        assertThrows(IllegalStateException.class, () -> importBulkhead.run(() -> {
+            throw new IllegalStateException("Unable to import");
+        }));
+        AtomicInteger finished = new AtomicInteger();
+        importBulkhead.run(finished::incrementAndGet);
+        assertEquals(1, finished.get());
+    }
+
+    private void await(CountDownLatch latch){
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
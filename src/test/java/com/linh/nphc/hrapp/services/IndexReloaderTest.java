@@ -0,0 +1,90 @@
+package com.linh.nphc.hrapp.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexReloaderTest {
+
+    private final IndexReloader indexReloader = new IndexReloader();
+
+    @AfterEach
+    public void tearDown(){
+        indexReloader.stop();
+    }
+
+    @Test
+    public void shouldMergeRequestsThatHaveNotStarted() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        indexReloader.request("blocker", () -> {
+            started.countDown();
+            this.await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger reloads = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++){
+            indexReloader.request("names", () -> {
+                reloads.incrementAndGet();
+                done.countDown();
+            });
+        }
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        this.drain();
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    public void shouldReloadAgainWhenAskedWhileReloading() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reloads = new AtomicInteger();
+        Runnable reload = () -> {
+            if (reloads.incrementAndGet() == 1){
+                started.countDown();
+                this.await(release);
+            }
+        };
+        indexReloader.request("names", reload);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        indexReloader.request("names", reload);
+        release.countDown();
+        this.drain();
+        assertEquals(2, reloads.get());
+    }
+
+    @Test
+    public void shouldKeepReloadingAfterFailure() throws InterruptedException {
+        indexReloader.request("names", () -> {
+            throw new IllegalStateException("database down");
+        });
+        CountDownLatch done = new CountDownLatch(1);
+        indexReloader.request("hashes", done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Waits for every reload requested so far, as they run in order on one thread.
+     */
+    private void drain() throws InterruptedException {
+        CountDownLatch drained = new CountDownLatch(1);
+        indexReloader.request("drain", drained::countDown);
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+    }
+
+    private void await(CountDownLatch latch){
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
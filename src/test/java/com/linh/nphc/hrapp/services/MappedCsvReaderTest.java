@@ -0,0 +1,134 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldReadRowsAfterHeader() throws IOException {
+        List<String[]> rows = this.readAll("id,login\ne0001,hpotter\ne0002,rwesley\n", MappedCsvReader.DEFAULT_WINDOW);
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"e0001", "hpotter"}, rows.get(0));
+        assertArrayEquals(new String[]{"e0002", "rwesley"}, rows.get(1));
+    }
+
+    @Test
+    public void shouldReadQuotedFieldsAndEmptyFieldsAsNull() throws IOException {
+        List<String[]> rows = this.readAll("h\r\n\"Potter, Harry\",\"say \"\"hi\"\"\",,\"\"\r\nlast,row", MappedCsvReader.DEFAULT_WINDOW);
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"Potter, Harry", "say \"hi\"", null, null}, rows.get(0));
+        assertArrayEquals(new String[]{"last", "row"}, rows.get(1));
+    }
+
+    @Test
+    public void shouldDecodeUtf8AndSkipBom() throws IOException {
+        List<String[]> rows = this.readAll("\uFEFFid,name\ne0001,Zoë Ærø 日本\n", MappedCsvReader.DEFAULT_WINDOW);
+        assertEquals(1, rows.size());
+        assertArrayEquals(new String[]{"e0001", "Zoë Ærø 日本"}, rows.get(0));
+    }
+
+    @Test
+    public void shouldRemapRowsAcrossSmallWindows() throws IOException {
+        StringBuilder content = new StringBuilder("id,login,name,salary,startDate\r\n");
+        for (int i = 0; i < 200; i++){
+            content.append(String.format("e%04d,login%d,\"Name, %d\",%d.5,2001-11-16\r\n", i, i, i, i));
+        }
+        List<String[]> rows = this.readAll(content.toString(), 64);
+        assertEquals(200, rows.size());
+        assertArrayEquals(new String[]{"e0199", "login199", "Name, 199", "199.5", "2001-11-16"}, rows.get(199));
+    }
+
+    @Test
+    public void shouldRejectRowLongerThanWindow() throws IOException {
+        Path file = this.write("id\nthis row is longer than the window\n");
+        assertThrows(IOException.class, () -> {
+            try (MappedCsvReader reader = new MappedCsvReader(file, 8)){
+                while (reader.readNext() != null){}
+            }
+        });
+    }
+
+    @Test
+    public void shouldReadSameRowsAsCsvReader() throws IOException, URISyntaxException, CsvValidationException {
+        Path file = Paths.get(ClassLoader.getSystemResource("employees.csv").toURI());
+        List<String[]> expected = new ArrayList<>();
+        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))
+                .withSkipLines(1)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.BOTH)
+                .build()){
+            String[] row;
+            while ((row = csvReader.readNext()) != null){
+                expected.add(row);
+            }
+        }
+        List<String[]> actual = this.readAll(file, MappedCsvReader.DEFAULT_WINDOW);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++){
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void shouldReadParityCasesLikeCsvReader() throws IOException, CsvValidationException {
+        for (Map.Entry<String, String> parityCase : CsvParityCases.READABLE.entrySet()){
+            List<String[]> expected = CsvParityCases.readWithCsvReader(parityCase.getValue());
+            for (long window : new long[]{MappedCsvReader.DEFAULT_WINDOW, 64}){
+                List<String[]> actual = this.readAll(parityCase.getValue(), window);
+                assertEquals(expected.size(), actual.size(), parityCase.getKey());
+                for (int i = 0; i < expected.size(); i++){
+                    assertArrayEquals(expected.get(i), actual.get(i), parityCase.getKey());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedParityCases(){
+        for (Map.Entry<String, String> parityCase : CsvParityCases.MALFORMED.entrySet()){
+            assertThrows(IOException.class, () -> CsvParityCases.readWithCsvReader(parityCase.getValue()), parityCase.getKey());
+            assertThrows(UnableToReadFileException.class,
+                    () -> this.readAll(parityCase.getValue(), MappedCsvReader.DEFAULT_WINDOW), parityCase.getKey());
+        }
+    }
+
+    private List<String[]> readAll(String content, long window) throws IOException {
+        return this.readAll(this.write(content), window);
+    }
+
+    private List<String[]> readAll(Path file, long window) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (MappedCsvReader reader = new MappedCsvReader(file, window)){
+            String[] row;
+            while ((row = reader.readNext()) != null){
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(tempDir.resolve("employees.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
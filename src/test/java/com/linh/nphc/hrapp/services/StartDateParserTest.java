@@ -0,0 +1,92 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartDateParserTest {
+
+    private final StartDateParser startDateParser = new StartDateParser(StartDateParser.DEFAULT_FORMATS);
+
+    @Test
+    public void shouldParseDefaultFormats(){
+        assertEquals(LocalDate.of(2001, 11, 16), startDateParser.parse("2001-11-16"));
+        assertEquals(LocalDate.of(2001, 11, 16), startDateParser.parse("16-Nov-01"));
+    }
+
+    @Test
+    public void shouldReturnNullWhenDateNull(){
+        assertNull(startDateParser.parse(null));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenFormatUnknown(){
+        UnableToReadFileException exception = assertThrows(UnableToReadFileException.class, () -> startDateParser.parse("2001-Nov-16"));
+        assertEquals("Invalid date 2001-Nov-16", exception.getMessage());
+        assertThrows(UnableToReadFileException.class, () -> startDateParser.parse(""));
+        assertThrows(UnableToReadFileException.class, () -> startDateParser.parse("2001-13-01"));
+        assertThrows(UnableToReadFileException.class, () -> startDateParser.parse("16-Abc-01"));
+    }
+
+    @Test
+    public void shouldResolveIsoDatesLikeFormatter(){
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(StartDateParser.ISO_FORMAT);
+        String[] values = {"2001-11-16", "2000-02-29", "2001-02-29", "2001-02-30", "2001-04-31", "2001-04-32",
+                "2001-00-10", "2001-12-00", "0000-01-01", "0001-01-01", "9999-12-31"};
+        for (String value : values){
+            LocalDate expected;
+            try {
+                expected = LocalDate.parse(value, formatter);
+            } catch (DateTimeParseException e) {
+                expected = null;
+            }
+            assertEquals(expected, StartDateParser.parseIso(value), value);
+        }
+    }
+
+    @Test
+    public void shouldResolveShortDatesLikeFormatter(){
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(StartDateParser.SHORT_FORMAT);
+        for (String month : new String[]{"Jan", "Feb", "Apr", "Nov", "Dec", "nov", "NOV", "Abc"}){
+            for (String year : new String[]{"00", "01", "04", "99"}){
+                for (int day = 0; day <= 32; day++){
+                    String value = String.format("%02d-%s-%s", day, month, year);
+                    LocalDate expected;
+                    try {
+                        expected = LocalDate.parse(value, formatter);
+                    } catch (DateTimeParseException e) {
+                        expected = null;
+                    }
+                    assertEquals(expected, this.parseOrNull(value), value);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldUseConfiguredFormats(){
+        StartDateParser parser = new StartDateParser(new String[]{"dd/MM/yyyy", "yyyy.MM.dd"});
+        assertEquals(LocalDate.of(2001, 11, 16), parser.parse("16/11/2001"));
+        assertEquals(LocalDate.of(2001, 11, 16), parser.parse("2001.11.16"));
+        assertThrows(UnableToReadFileException.class, () -> parser.parse("2001-11-16"));
+    }
+
+    @Test
+    public void shouldFallBackToFormatterWhenShapeDoesNotMatch(){
+        StartDateParser parser = new StartDateParser(new String[]{"d-M-yyyy"});
+        assertEquals(LocalDate.of(2001, 11, 6), parser.parse("6-11-2001"));
+    }
+
+    private LocalDate parseOrNull(String value){
+        try {
+            return startDateParser.parse(value);
+        } catch (UnableToReadFileException e) {
+            return null;
+        }
+    }
+}
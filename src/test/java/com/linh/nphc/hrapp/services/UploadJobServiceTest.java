@@ -0,0 +1,117 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.DuplicateRowException;
+import com.linh.nphc.hrapp.exceptions.UploadRejectedException;
+import com.linh.nphc.hrapp.models.UploadJob;
+import com.linh.nphc.hrapp.models.UploadProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UploadJobServiceTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Spy
+    private VirtualThreads virtualThreads = new VirtualThreads(false);
+
+    @InjectMocks
+    private UploadJobService uploadJobService;
+
+    @BeforeEach
+    public void setUp(){
+        ReflectionTestUtils.setField(uploadJobService, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(uploadJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(uploadJobService, "retentionMinutes", 60L);
+        uploadJobService.start();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        uploadJobService.stop();
+    }
+
+    @Test
+    public void shouldCompleteJobAndDeleteFile() throws Exception {
+        doAnswer(invocation -> {
+            UploadProgress progress = invocation.getArgument(1);
+            progress.rowParsed();
+            progress.rowsWritten(1);
+            return null;
+        }).when(employeeService).processFile(any(InputStreamSource.class), any(UploadProgress.class));
+        Path file = Files.createTempFile("employees", ".csv");
+        UploadJob job = this.awaitFinished(uploadJobService.submit(file, UploadJob.Mode.INSERT));
+        assertEquals(UploadJob.Status.COMPLETED, job.getStatus());
+        assertEquals(201, job.getResultStatus());
+        assertEquals("Data is created", job.getMessage());
+        assertEquals(1, job.getRowsParsed());
+        assertEquals(1, job.getRowsWritten());
+        assertFalse(Files.exists(file));
+        assertSame(job, uploadJobService.getJob(job.getJobId()).orElse(null));
+    }
+
+    @Test
+    public void shouldReportSameMessageAsSynchronousUpload() throws Exception {
+        doThrow(new DuplicateRowException("ID e0002 is duplicated")).when(employeeService).processFile(any(InputStreamSource.class), any(UploadProgress.class));
+        UploadJob job = this.awaitFinished(uploadJobService.submit(Files.createTempFile("employees", ".csv"), UploadJob.Mode.INSERT));
+        assertEquals(UploadJob.Status.FAILED, job.getStatus());
+        assertEquals(400, job.getResultStatus());
+        assertEquals("ID e0002 is duplicated", job.getMessage());
+    }
+
+    @Test
+    public void shouldUpsertInUpsertMode() throws Exception {
+        doAnswer(invocation -> {
+            UploadProgress progress = invocation.getArgument(1);
+            progress.rowsMerged(1, 2, 3);
+            return null;
+        }).when(employeeService).upsertFile(any(InputStreamSource.class), any(UploadProgress.class));
+        UploadJob job = this.awaitFinished(uploadJobService.submit(Files.createTempFile("employees", ".csv"), UploadJob.Mode.UPSERT));
+        verify(employeeService, never()).processFile(any(InputStreamSource.class), any(UploadProgress.class));
+        assertEquals(UploadJob.Status.COMPLETED, job.getStatus());
+        assertEquals(UploadJob.Mode.UPSERT, job.getMode());
+        assertEquals(1L, job.getRowsInserted());
+        assertEquals(2L, job.getRowsUpdated());
+        assertEquals(3L, job.getRowsUnchanged());
+    }
+
+    @Test
+    public void shouldRejectWhenQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(employeeService).processFile(any(InputStreamSource.class), any(UploadProgress.class));
+        UploadJob running = uploadJobService.submit(Files.createTempFile("employees", ".csv"), UploadJob.Mode.INSERT);
+        UploadJob queued = uploadJobService.submit(Files.createTempFile("employees", ".csv"), UploadJob.Mode.INSERT);
+        Path rejected = Files.createTempFile("employees", ".csv");
+        assertThrows(UploadRejectedException.class, () -> uploadJobService.submit(rejected, UploadJob.Mode.INSERT));
+        assertFalse(Files.exists(rejected));
+        release.countDown();
+        this.awaitFinished(running);
+        this.awaitFinished(queued);
+    }
+
+    private UploadJob awaitFinished(UploadJob job) throws InterruptedException {
+        for (int i = 0; i < 100 && !job.isFinished(); i++){
+            Thread.sleep(50);
+        }
+        assertTrue(job.isFinished());
+        return job;
+    }
+}
@@ -0,0 +1,139 @@
+package com.linh.nphc.hrapp.services;
+
+import com.linh.nphc.hrapp.exceptions.DuplicateRowException;
+import com.linh.nphc.hrapp.exceptions.InvalidFieldException;
+import com.linh.nphc.hrapp.exceptions.UnableToReadFileException;
+import com.linh.nphc.hrapp.models.Employee;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadPipelineTest {
+
+    private final ExecutorService workerPool = new ForkJoinPool(4);
+
+    @AfterEach
+    public void tearDown(){
+        workerPool.shutdownNow();
+    }
+
+    @Test
+    public void shouldWriteRowsInFileOrder() throws IOException {
+        List<Integer> rows = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        List<String> written = new ArrayList<>();
+        new UploadPipeline<>(this::toEmployee, workerPool, 4, 64).run(reader(rows), employee -> written.add(employee.getId()));
+        assertEquals(rows.stream().map(String::valueOf).collect(Collectors.toList()), written);
+    }
+
+    @Test
+    public void shouldThrowFirstConversionErrorAfterWritingPreviousRows() throws IOException {
+        List<Integer> rows = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        Function<Integer, Employee> converter = row -> {
+            if (row == 130 || row == 7 || row == 600){
+                throw new InvalidFieldException("Invalid row " + row);
+            }
+            return this.toEmployee(row);
+        };
+        List<String> written = new ArrayList<>();
+        InvalidFieldException exception = assertThrows(InvalidFieldException.class,
+                () -> new UploadPipeline<>(converter, workerPool, 4, 64).run(reader(rows), employee -> written.add(employee.getId())));
+        assertEquals("Invalid row 7", exception.getMessage());
+        assertEquals(7, written.size());
+    }
+
+    @Test
+    public void shouldThrowWriterErrorBeforeLaterConversionError() throws IOException {
+        List<Integer> rows = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        Function<Integer, Employee> converter = row -> {
+            if (row == 500){
+                throw new InvalidFieldException("Invalid row " + row);
+            }
+            return this.toEmployee(row);
+        };
+        assertThrows(DuplicateRowException.class, () -> new UploadPipeline<>(converter, workerPool, 4, 64).run(reader(rows), employee -> {
+            if (employee.getId().equals("300")){
+                throw new DuplicateRowException("ID 300 is duplicated");
+            }
+        }));
+    }
+
+    @Test
+    public void shouldThrowReaderErrorAfterEarlierConversionError() throws IOException {
+        List<Integer> rows = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        Function<Integer, Employee> converter = row -> {
+            if (row == 90){
+                throw new InvalidFieldException("Invalid row " + row);
+            }
+            return this.toEmployee(row);
+        };
+        List<String> written = new ArrayList<>();
+        InvalidFieldException exception = assertThrows(InvalidFieldException.class,
+                () -> new UploadPipeline<>(converter, workerPool, 4, 64).run(failingReader(rows, 100), employee -> written.add(employee.getId())));
+        assertEquals("Invalid row 90", exception.getMessage());
+        assertEquals(90, written.size());
+
+        written.clear();
+        UnableToReadFileException readError = assertThrows(UnableToReadFileException.class,
+                () -> new UploadPipeline<>(this::toEmployee, workerPool, 4, 64).run(failingReader(rows, 100), employee -> written.add(employee.getId())));
+        assertEquals("Unable to parse row 100", readError.getMessage());
+        assertEquals(100, written.size());
+    }
+
+    @Test
+    public void shouldThrowReaderIOExceptionAfterWritingPreviousRows() throws IOException {
+        List<Integer> rows = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        RowReader<Integer> reader = reader(rows);
+        RowReader<Integer> brokenReader = () -> {
+            Integer row = reader.readNext();
+            if (row != null && row == 100){
+                throw new IOException("Connection reset");
+            }
+            return row;
+        };
+        List<String> written = new ArrayList<>();
+        IOException exception = assertThrows(IOException.class,
+                () -> new UploadPipeline<>(this::toEmployee, workerPool, 4, 64).run(brokenReader, employee -> written.add(employee.getId())));
+        assertEquals("Connection reset", exception.getMessage());
+        assertEquals(100, written.size());
+    }
+
+    @Test
+    public void shouldRunSequentiallyWithoutWorkerPool() throws IOException {
+        List<Integer> rows = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        List<String> written = new ArrayList<>();
+        new UploadPipeline<>(this::toEmployee).run(reader(rows), employee -> written.add(employee.getId()));
+        assertEquals(10, written.size());
+    }
+
+    private Employee toEmployee(Integer row){
+        return new Employee(String.valueOf(row), "login" + row, "Name " + row, 1.0, LocalDate.of(2001, 11, 16));
+    }
+
+    private static RowReader<Integer> reader(List<Integer> rows){
+        Iterator<Integer> iterator = rows.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static RowReader<Integer> failingReader(List<Integer> rows, int failingRow){
+        RowReader<Integer> reader = reader(rows);
+        return () -> {
+            Integer row = reader.readNext();
+            if (row != null && row == failingRow){
+                throw new UnableToReadFileException("Unable to parse row " + row);
+            }
+            return row;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.linh.nphc.hrapp.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void shouldCreateNamedPlatformThreadsByDefault(){
+        ThreadFactory threadFactory = new VirtualThreads(false).threadFactory("upload-job-");
+        assertEquals("upload-job-1", threadFactory.newThread(() -> {}).getName());
+        assertEquals("upload-job-2", threadFactory.newThread(() -> {}).getName());
+    }
+
+    @Test
+    public void shouldCreateVirtualThreadsWhenSupported() throws Exception {
+        assumeTrue(isVirtualThreadSupported());
+        VirtualThreads virtualThreads = new VirtualThreads(true);
+        Thread thread = virtualThreads.threadFactory("upload-job-").newThread(() -> {});
+        assertEquals("upload-job-1", thread.getName());
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+
+        ExecutorService executor = virtualThreads.newThreadPerTaskExecutor("http-virtual-");
+        try {
+            Future<String> name = executor.submit(() -> Thread.currentThread().getName());
+            assertEquals("http-virtual-1", name.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRefuseVirtualThreadsOnOlderJava(){
+        assumeFalse(isVirtualThreadSupported());
+        assertThrows(IllegalStateException.class, () -> new VirtualThreads(true));
+    }
+
+    private static boolean isVirtualThreadSupported(){
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e){
+            return false;
+        }
+    }
+}